@@ -0,0 +1,21 @@
+package com.teguh.book.catalog;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+
+import com.teguh.book.security.JwtService;
+
+/*
+ * Read-only catalogue served on WebFlux and R2DBC next to book-networks. It
+ * reads the same schema and validates the tokens book-networks issues.
+ */
+@SpringBootApplication
+@Import(JwtService.class)
+public class BookCatalogApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(BookCatalogApplication.class, args);
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.teguh.book.catalog.book;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.teguh.book.book.BookFeedSort;
+import com.teguh.book.book.BookResponse;
+import com.teguh.book.catalog.security.CatalogUser;
+import com.teguh.book.common.PageResponse;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("books")
+@RequiredArgsConstructor
+public class BookCatalogController {
+    // Responses depend on the connected user, so only the browser may keep them and it must revalidate
+    private static final CacheControl REVALIDATE_PRIVATE = CacheControl.noCache().cachePrivate();
+
+    private final BookCatalogService bookService;
+
+    @GetMapping("{book-id}")
+    public Mono<ResponseEntity<BookResponse>> findBookById(
+            @PathVariable("book-id") Integer bookId,
+            ServerWebExchange exchange) {
+        return bookService.findBookETag(bookId).flatMap(eTag -> {
+            if (exchange.checkNotModified(eTag)) {
+                return Mono.empty();
+            }
+            return bookService.findById(bookId).map(book -> ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(REVALIDATE_PRIVATE)
+                    .body(book));
+        });
+    }
+
+    @GetMapping("/cover/{book-id}")
+    public Mono<ResponseEntity<Resource>> findBookCover(
+            @PathVariable("book-id") Integer bookId,
+            ServerWebExchange exchange) {
+        return bookService.findCover(bookId).flatMap(cover -> {
+            if (exchange.checkNotModified(cover.eTag())) {
+                return Mono.empty();
+            }
+            return Mono.just(ResponseEntity.ok()
+                    .eTag(cover.eTag())
+                    .cacheControl(REVALIDATE_PRIVATE)
+                    .contentType(cover.mediaType())
+                    .body(cover.resource()));
+        });
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<PageResponse<BookResponse>>> findAll(
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "sort", defaultValue = "NEWEST", required = false) BookFeedSort sort,
+            @AuthenticationPrincipal CatalogUser connectedUser) {
+        return bookService.findAllBooks(page, size, sort, connectedUser)
+                .map(books -> ResponseEntity.ok()
+                        .cacheControl(REVALIDATE_PRIVATE)
+                        .body(books));
+    }
+}
@@ -0,0 +1,109 @@
+package com.teguh.book.catalog.book;
+
+import java.time.LocalDateTime;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.teguh.book.book.BookFeedSort;
+import com.teguh.book.book.BookVersion;
+
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/*
+ * The rate comes from book_rating_summary instead of averaging every feedback,
+ * rounded the same way as Book.getRate().
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookCatalogRepository {
+    private static final String SELECT_BOOK = """
+            SELECT book.id, book.title, book.author_name, book.isbn, book.synopsis, book.cover_book,
+                   book.archived, book.shareable, owner.firstname, owner.lastname,
+                   summary.rating_sum, summary.total_count
+            FROM book
+            JOIN _user owner ON owner.id = book.owner_id
+            LEFT JOIN book_rating_summary summary ON summary.book_id = book.id
+            """;
+    private static final String DISPLAYABLE = """
+            WHERE book.archived = false
+            AND book.shareable = true
+            AND book.owner_id <> :userId
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<BookRow> findAllDisplayableBooks(Integer userId, BookFeedSort sort, int page, int size) {
+        return databaseClient.sql(SELECT_BOOK + DISPLAYABLE + orderBy(sort) + " LIMIT :limit OFFSET :offset")
+                .bind("userId", userId)
+                .bind("limit", size)
+                .bind("offset", (long) page * size)
+                .map((row, metadata) -> toBookRow(row))
+                .all();
+    }
+
+    public Mono<Long> countDisplayableBooks(Integer userId) {
+        return databaseClient.sql("SELECT COUNT(*) FROM book " + DISPLAYABLE)
+                .bind("userId", userId)
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one();
+    }
+
+    public Mono<BookRow> findById(Integer bookId) {
+        return databaseClient.sql(SELECT_BOOK + "WHERE book.id = :bookId")
+                .bind("bookId", bookId)
+                .map((row, metadata) -> toBookRow(row))
+                .one();
+    }
+
+    public Mono<String> findCoverBookById(Integer bookId) {
+        return databaseClient.sql("SELECT cover_book FROM book WHERE id = :bookId AND cover_book IS NOT NULL")
+                .bind("bookId", bookId)
+                .map((row, metadata) -> row.get("cover_book", String.class))
+                .one();
+    }
+
+    // Same parts as BookRepository.findVersionById, so both APIs hand out the same ETag
+    public Mono<BookVersion> findVersionById(Integer bookId) {
+        return databaseClient.sql("""
+                SELECT book.id, book.created_date, book.last_modified_date,
+                       (SELECT COUNT(feedback.id) FROM feedback WHERE feedback.book_id = book.id) AS feedback_count
+                FROM book
+                WHERE book.id = :bookId
+                """)
+                .bind("bookId", bookId)
+                .map((row, metadata) -> new BookVersion(
+                        row.get("id", Integer.class),
+                        row.get("created_date", LocalDateTime.class),
+                        row.get("last_modified_date", LocalDateTime.class),
+                        row.get("feedback_count", Long.class)))
+                .one();
+    }
+
+    private String orderBy(BookFeedSort sort) {
+        return switch (sort) {
+            case NEWEST -> "ORDER BY book.created_date DESC, book.id DESC";
+            case TRENDING -> "ORDER BY book.trending_score DESC, book.id DESC";
+        };
+    }
+
+    private BookRow toBookRow(Row row) {
+        Double ratingSum = row.get("rating_sum", Double.class);
+        Integer totalCount = row.get("total_count", Integer.class);
+        double rate = ratingSum == null || totalCount == null || totalCount == 0 ? 0.0 : ratingSum / totalCount;
+        return new BookRow(
+                row.get("id", Integer.class),
+                row.get("title", String.class),
+                row.get("author_name", String.class),
+                row.get("isbn", String.class),
+                row.get("synopsis", String.class),
+                row.get("firstname", String.class) + " " + row.get("lastname", String.class),
+                row.get("cover_book", String.class),
+                Math.round(rate * 10.0) / 10.0,
+                Boolean.TRUE.equals(row.get("archived", Boolean.class)),
+                Boolean.TRUE.equals(row.get("shareable", Boolean.class)));
+    }
+}
@@ -0,0 +1,88 @@
+package com.teguh.book.catalog.book;
+
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.teguh.book.book.BookFeedSort;
+import com.teguh.book.book.BookResponse;
+import com.teguh.book.book.BookVersion;
+import com.teguh.book.catalog.common.PageResponses;
+import com.teguh.book.catalog.security.CatalogUser;
+import com.teguh.book.common.ETagUtils;
+import com.teguh.book.common.PageResponse;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+@Service
+@RequiredArgsConstructor
+public class BookCatalogService {
+    private final BookCatalogRepository bookRepository;
+
+    @Value("${application.file.base-dir}")
+    private String fileBaseDir;
+
+    public Mono<PageResponse<BookResponse>> findAllBooks(int page, int size, BookFeedSort sort, CatalogUser user) {
+        return Mono.zip(
+                bookRepository.findAllDisplayableBooks(user.getId(), sort, page, size)
+                        .map(this::toBookResponse)
+                        .collectList(),
+                bookRepository.countDisplayableBooks(user.getId()))
+                .map(result -> PageResponses.of(result.getT1(), page, size, result.getT2()));
+    }
+
+    public Mono<BookResponse> findById(Integer bookId) {
+        return bookRepository.findById(bookId)
+                .switchIfEmpty(notFound(bookId))
+                .map(this::toBookResponse);
+    }
+
+    public Mono<String> findBookETag(Integer bookId) {
+        return bookRepository.findVersionById(bookId)
+                .switchIfEmpty(notFound(bookId))
+                .map(BookVersion::toETag);
+    }
+
+    private <T> Mono<T> notFound(Integer bookId) {
+        return Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No book found with ID::" + bookId));
+    }
+
+    /*
+     * The cover file of a book. Handed to WebFlux as a file resource, which
+     * Netty sends with zero-copy file transfer instead of reading it.
+     */
+    public Mono<BookCover> findCover(Integer bookId) {
+        return bookRepository.findCoverBookById(bookId)
+                .map(coverBook -> new BookCover(
+                        // Every upload is a new file, so its name identifies the bytes
+                        ETagUtils.weakETag(bookId, Path.of(coverBook).getFileName()),
+                        MediaTypeFactory.getMediaType(coverBook).orElse(MediaType.APPLICATION_OCTET_STREAM),
+                        new FileSystemResource(Path.of(fileBaseDir).resolve(coverBook))))
+                .filter(cover -> cover.resource().isReadable())
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(
+                        HttpStatus.NOT_FOUND, "No cover found for book with ID::" + bookId)));
+    }
+
+    private BookResponse toBookResponse(BookRow row) {
+        return BookResponse
+                .builder()
+                .id(row.id())
+                .title(row.title())
+                .authorName(row.authorName())
+                .isbn(row.isbn())
+                .synopsis(row.synopsis())
+                .rate(row.rate())
+                .archived(row.archived())
+                .shareable(row.shareable())
+                .owner(row.owner())
+                .coverUrl(BookResponse.coverUrl(row.id(), row.coverBook()))
+                .build();
+    }
+}
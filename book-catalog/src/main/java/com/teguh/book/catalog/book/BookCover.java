@@ -0,0 +1,7 @@
+package com.teguh.book.catalog.book;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+
+public record BookCover(String eTag, MediaType mediaType, Resource resource) {
+}
@@ -0,0 +1,18 @@
+package com.teguh.book.catalog.book;
+
+/*
+ * A book as read from the database. The cover is the stored path; responses
+ * only link to it.
+ */
+public record BookRow(
+        Integer id,
+        String title,
+        String authorName,
+        String isbn,
+        String synopsis,
+        String owner,
+        String coverBook,
+        double rate,
+        boolean archived,
+        boolean shareable) {
+}
@@ -0,0 +1,26 @@
+package com.teguh.book.catalog.common;
+
+import java.util.List;
+
+import com.teguh.book.common.PageResponse;
+
+/*
+ * Builds the PageResponse book-networks derives from a Spring Data Page, from
+ * a page of rows and a separate count.
+ */
+public class PageResponses {
+
+    public static <T> PageResponse<T> of(List<T> content, int page, int size, long totalElements) {
+        int totalPages = size == 0 ? 1 : (int) Math.ceil((double) totalElements / size);
+        return PageResponse.<T>builder()
+                .content(content)
+                .number(page)
+                .size(size)
+                .totalElements(totalElements)
+                .totalPages(totalPages)
+                .first(page == 0)
+                .last(page + 1 >= totalPages)
+                .build();
+    }
+
+}
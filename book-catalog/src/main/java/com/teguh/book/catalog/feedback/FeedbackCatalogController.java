@@ -0,0 +1,47 @@
+package com.teguh.book.catalog.feedback;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.teguh.book.catalog.security.CatalogUser;
+import com.teguh.book.common.PageResponse;
+import com.teguh.book.feedback.FeedbackResponse;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("feedbacks")
+@RequiredArgsConstructor
+public class FeedbackCatalogController {
+    private static final CacheControl REVALIDATE_PRIVATE = CacheControl.noCache().cachePrivate();
+
+    private final FeedbackCatalogService service;
+
+    @GetMapping("/book/{book-id}")
+    public Mono<ResponseEntity<PageResponse<FeedbackResponse>>> findAllFeedbacksByBook(
+            @PathVariable("book-id") Integer bookId,
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @AuthenticationPrincipal CatalogUser connectedUser,
+            ServerWebExchange exchange) {
+        return service.findFeedbackPageVersion(bookId).flatMap(version -> {
+            String eTag = version.toETag(bookId, connectedUser.getId(), page, size);
+            if (exchange.checkNotModified(eTag)) {
+                return Mono.empty();
+            }
+            return service.findAllFeedbacksByBook(bookId, page, size, version, connectedUser)
+                    .map(feedbacks -> ResponseEntity.ok()
+                            .eTag(eTag)
+                            .cacheControl(REVALIDATE_PRIVATE)
+                            .body(feedbacks));
+        });
+    }
+}
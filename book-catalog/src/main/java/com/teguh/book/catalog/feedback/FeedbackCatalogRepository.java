@@ -0,0 +1,55 @@
+package com.teguh.book.catalog.feedback;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.teguh.book.feedback.FeedbackPageVersion;
+import com.teguh.book.feedback.FeedbackResponse;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+@RequiredArgsConstructor
+public class FeedbackCatalogRepository {
+    private final DatabaseClient databaseClient;
+
+    public Flux<FeedbackResponse> findAllByBookId(Integer bookId, Integer userId, int page, int size) {
+        return databaseClient.sql("""
+                SELECT rating, comment, created_by
+                FROM feedback
+                WHERE book_id = :bookId
+                ORDER BY id
+                LIMIT :limit OFFSET :offset
+                """)
+                .bind("bookId", bookId)
+                .bind("limit", size)
+                .bind("offset", (long) page * size)
+                .map((row, metadata) -> FeedbackResponse
+                        .builder()
+                        .rating(row.get("rating", Double.class))
+                        .command(row.get("comment", String.class))
+                        .ownFeedback(Objects.equals(row.get("created_by", Integer.class), userId))
+                        .build())
+                .all();
+    }
+
+    // Same parts as FeedbackRepository.findVersionByBookId; the count doubles as the page total
+    public Mono<FeedbackPageVersion> findVersionByBookId(Integer bookId) {
+        return databaseClient.sql("""
+                SELECT COUNT(id) AS feedback_count,
+                       MAX(COALESCE(last_modified_date, created_date)) AS last_modified_date
+                FROM feedback
+                WHERE book_id = :bookId
+                """)
+                .bind("bookId", bookId)
+                .map((row, metadata) -> new FeedbackPageVersion(
+                        row.get("feedback_count", Long.class),
+                        row.get("last_modified_date", LocalDateTime.class)))
+                .one();
+    }
+}
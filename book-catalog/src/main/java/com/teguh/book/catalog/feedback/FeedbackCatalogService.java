@@ -0,0 +1,29 @@
+package com.teguh.book.catalog.feedback;
+
+import org.springframework.stereotype.Service;
+
+import com.teguh.book.catalog.common.PageResponses;
+import com.teguh.book.catalog.security.CatalogUser;
+import com.teguh.book.common.PageResponse;
+import com.teguh.book.feedback.FeedbackPageVersion;
+import com.teguh.book.feedback.FeedbackResponse;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+@Service
+@RequiredArgsConstructor
+public class FeedbackCatalogService {
+    private final FeedbackCatalogRepository feedbackRepository;
+
+    public Mono<FeedbackPageVersion> findFeedbackPageVersion(Integer bookId) {
+        return feedbackRepository.findVersionByBookId(bookId);
+    }
+
+    public Mono<PageResponse<FeedbackResponse>> findAllFeedbacksByBook(Integer bookId, int page, int size,
+            FeedbackPageVersion version, CatalogUser user) {
+        return feedbackRepository.findAllByBookId(bookId, user.getId(), page, size)
+                .collectList()
+                .map(feedbacks -> PageResponses.of(feedbacks, page, size, version.feedbackCount()));
+    }
+}
@@ -0,0 +1,76 @@
+package com.teguh.book.catalog.security;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/*
+ * Sessions revoked in book-networks (logout, refresh token reuse), so their
+ * access tokens stop working here too. The token_revocation table is read
+ * on an interval and requests check an immutable set on the event loop, so
+ * a revocation is enforced here within that interval. A failed reload keeps
+ * the previous set.
+ */
+@Component
+@Slf4j
+public class CatalogRevocationRegistry {
+    private final CatalogRevocationRepository revocationRepository;
+    private final Duration refreshInterval;
+    private volatile Set<UUID> revokedSessions = Set.of();
+    private Disposable reloads;
+
+    public CatalogRevocationRegistry(
+            CatalogRevocationRepository revocationRepository,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.revocation.refresh-interval:5s}") Duration refreshInterval) {
+        this.revocationRepository = revocationRepository;
+        this.refreshInterval = refreshInterval;
+        Gauge.builder("security.revoked_sessions", this, registry -> registry.revokedSessions.size())
+                .register(meterRegistry);
+    }
+
+    // Tokens issued before they carried the session id cannot be revoked
+    public boolean isRevoked(UUID sessionId) {
+        return sessionId != null && revokedSessions.contains(sessionId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reloads = Flux.interval(Duration.ZERO, refreshInterval)
+                .concatMap(tick -> reload().onErrorResume(e -> {
+                    log.warn("Could not reload the session revocations, keeping the previous {}",
+                            revokedSessions.size(), e);
+                    return Mono.empty();
+                }))
+                .subscribe();
+    }
+
+    Mono<Void> reload() {
+        return revocationRepository.findLiveSessionIds(LocalDateTime.now())
+                .collect(Collectors.toUnmodifiableSet())
+                .doOnNext(sessions -> revokedSessions = sessions)
+                .then();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reloads != null) {
+            reloads.dispose();
+        }
+    }
+}
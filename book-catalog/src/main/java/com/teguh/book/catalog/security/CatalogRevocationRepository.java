@@ -0,0 +1,28 @@
+package com.teguh.book.catalog.security;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+
+@Repository
+@RequiredArgsConstructor
+public class CatalogRevocationRepository {
+    private final DatabaseClient databaseClient;
+
+    // Sessions revoked by book-networks whose access tokens can still be presented
+    public Flux<UUID> findLiveSessionIds(LocalDateTime now) {
+        return databaseClient.sql("""
+                SELECT session_id
+                FROM token_revocation
+                WHERE expires_at > :now
+                """)
+                .bind("now", now)
+                .map((row, metadata) -> row.get("session_id", UUID.class))
+                .all();
+    }
+}
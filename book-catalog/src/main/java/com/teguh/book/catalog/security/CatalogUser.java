@@ -0,0 +1,57 @@
+package com.teguh.book.catalog.security;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.teguh.book.security.AuthenticatedUser;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/*
+ * The connected user as the catalogue needs it: the id that decides which books
+ * are displayable and which feedbacks are the user's own. Read endpoints check
+ * no roles, so none are loaded.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class CatalogUser implements UserDetails {
+    private Integer id;
+    private String email;
+    private boolean enabled;
+    private boolean accountLocked;
+
+    // Tokens are only issued to enabled, unlocked users
+    public static CatalogUser from(AuthenticatedUser user) {
+        return CatalogUser.builder()
+                .id(user.id())
+                .email(user.email())
+                .enabled(true)
+                .build();
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of();
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return !accountLocked;
+    }
+}
@@ -0,0 +1,29 @@
+package com.teguh.book.catalog.security;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+@Repository
+@RequiredArgsConstructor
+public class CatalogUserRepository {
+    private final DatabaseClient databaseClient;
+
+    public Mono<CatalogUser> findByEmail(String email) {
+        return databaseClient.sql("""
+                SELECT id, email, enabled, account_locked
+                FROM _user
+                WHERE email = :email
+                """)
+                .bind("email", email)
+                .map((row, metadata) -> CatalogUser.builder()
+                        .id(row.get("id", Integer.class))
+                        .email(row.get("email", String.class))
+                        .enabled(Boolean.TRUE.equals(row.get("enabled", Boolean.class)))
+                        .accountLocked(Boolean.TRUE.equals(row.get("account_locked", Boolean.class)))
+                        .build())
+                .one();
+    }
+}
@@ -0,0 +1,58 @@
+package com.teguh.book.catalog.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.teguh.book.security.JwtService;
+
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/*
+ * Same checks as JwtFilter in book-networks: signature and expiry through the
+ * shared JwtService, and the principal comes from the token's claims. Tokens
+ * issued before they carried the user id still need the user looked up, and a
+ * token of a revoked session is refused. Token parsing and the revocation
+ * check are CPU only, so they stay on the event loop.
+ */
+@Service
+@RequiredArgsConstructor
+public class JwtAuthenticationManager implements ReactiveAuthenticationManager {
+    private final JwtService jwtService;
+    private final CatalogUserRepository userRepository;
+    private final CatalogRevocationRegistry revocationRegistry;
+
+    public static Mono<Authentication> bearerToken(ServerWebExchange exchange) {
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return Mono.empty();
+        }
+        String jwt = authHeader.substring(7);
+        return Mono.just(UsernamePasswordAuthenticationToken.unauthenticated(null, jwt));
+    }
+
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        String jwt = (String) authentication.getCredentials();
+        return Mono.fromCallable(() -> jwtService.extractAllClaims(jwt))
+                .filter(claims -> !revocationRegistry.isRevoked(jwtService.extractSessionId(claims)))
+                .flatMap(claims -> Mono.justOrEmpty(jwtService.extractAuthenticatedUser(claims))
+                        .map(CatalogUser::from)
+                        .switchIfEmpty(Mono.defer(() -> findUser(jwt))))
+                .onErrorMap(JwtException.class, e -> new BadCredentialsException("Invalid token", e))
+                .switchIfEmpty(Mono.error(() -> new BadCredentialsException("Invalid token")))
+                .map(user -> UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities()));
+    }
+
+    private Mono<CatalogUser> findUser(String jwt) {
+        return Mono.fromCallable(() -> jwtService.extractUsername(jwt))
+                .flatMap(userRepository::findByEmail)
+                .filter(user -> jwtService.isTokenValid(jwt, user));
+    }
+}
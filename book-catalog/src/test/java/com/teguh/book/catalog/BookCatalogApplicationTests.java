@@ -0,0 +1,13 @@
+package com.teguh.book.catalog;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class BookCatalogApplicationTests {
+
+	@Test
+	void contextLoads() {
+	}
+
+}
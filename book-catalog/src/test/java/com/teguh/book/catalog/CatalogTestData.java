@@ -0,0 +1,150 @@
+package com.teguh.book.catalog;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.teguh.book.security.JwtService;
+
+/*
+ * Rows as book-networks writes them, straight into the shared schema: an owner
+ * with a shareable book and two readers who rated it (4 and 3, so a 3.5 rate),
+ * with the rating summary book-networks keeps next to the feedbacks. Tokens
+ * carry the same claims book-networks puts in them.
+ */
+public class CatalogTestData {
+    public static final String TITLE = "Catalog parity";
+
+    private final DatabaseClient databaseClient;
+    private final JwtService jwtService;
+
+    public Integer ownerId;
+    public Integer readerId;
+    public Integer otherReaderId;
+    public Integer bookId;
+    public LocalDateTime bookCreatedDate;
+    public LocalDateTime lastFeedbackDate;
+
+    public CatalogTestData(DatabaseClient databaseClient, JwtService jwtService) {
+        this.databaseClient = databaseClient;
+        this.jwtService = jwtService;
+    }
+
+    public CatalogTestData insert() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        ownerId = insertUser("owner", now);
+        readerId = insertUser("reader", now);
+        otherReaderId = insertUser("other", now);
+
+        bookId = nextId("book_seq");
+        bookCreatedDate = now;
+        databaseClient.sql("""
+                INSERT INTO book (id, created_by, created_date, archived, author_name, isbn, shareable,
+                                  synopsis, title, owner_id)
+                VALUES (:id, :ownerId, :createdDate, false, 'Author', :isbn, true, 'Synopsis', :title, :ownerId)
+                """)
+                .bind("id", bookId)
+                .bind("ownerId", ownerId)
+                .bind("createdDate", now)
+                .bind("isbn", "catalog-" + bookId)
+                .bind("title", TITLE)
+                .then()
+                .block();
+
+        insertFeedback(readerId, 4.0, "Good", now.plusSeconds(1));
+        lastFeedbackDate = now.plusSeconds(2);
+        insertFeedback(otherReaderId, 3.0, "Fine", lastFeedbackDate);
+        databaseClient.sql("""
+                INSERT INTO book_rating_summary
+                    (book_id, total_count, rating_sum, one_star, two_star, three_star, four_star, five_star)
+                VALUES (:bookId, 2, 7, 0, 0, 1, 1, 0)
+                """)
+                .bind("bookId", bookId)
+                .then()
+                .block();
+        return this;
+    }
+
+    public void delete() {
+        if (bookId != null) {
+            execute("DELETE FROM book_rating_summary WHERE book_id = :id", bookId);
+            execute("DELETE FROM feedback WHERE book_id = :id", bookId);
+            execute("DELETE FROM book WHERE id = :id", bookId);
+        }
+        for (Integer userId : new Integer[] { ownerId, readerId, otherReaderId }) {
+            if (userId != null) {
+                execute("DELETE FROM _user WHERE id = :id", userId);
+            }
+        }
+    }
+
+    // An access token of a session, as RefreshTokenService issues it
+    public String accessToken(Integer userId, UUID sessionId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtService.USER_ID_CLAIM, userId);
+        claims.put(JwtService.FULL_NAME_CLAIM, "Catalog Test");
+        claims.put(JwtService.SESSION_ID_CLAIM, sessionId.toString());
+        return jwtService.generateToken(claims, userDetails(userId));
+    }
+
+    // A token from before the user id and session claims, looked up by its subject
+    public String legacyAccessToken(Integer userId) {
+        return jwtService.generateToken(userDetails(userId));
+    }
+
+    public String email(Integer userId) {
+        return "catalog-" + userId + "@book.test";
+    }
+
+    private UserDetails userDetails(Integer userId) {
+        return User.withUsername(email(userId)).password("password").authorities(List.of()).build();
+    }
+
+    private Integer insertUser(String firstname, LocalDateTime now) {
+        Integer id = nextId("_user_seq");
+        databaseClient.sql("""
+                INSERT INTO _user (id, account_locked, created_date, email, enabled, firstname, lastname, password)
+                VALUES (:id, false, :createdDate, :email, true, :firstname, 'Test', 'password')
+                """)
+                .bind("id", id)
+                .bind("createdDate", now)
+                .bind("email", email(id))
+                .bind("firstname", firstname)
+                .then()
+                .block();
+        return id;
+    }
+
+    private void insertFeedback(Integer userId, double rating, String comment, LocalDateTime createdDate) {
+        databaseClient.sql("""
+                INSERT INTO feedback (id, created_by, created_date, comment, rating, book_id)
+                VALUES (:id, :userId, :createdDate, :comment, :rating, :bookId)
+                """)
+                .bind("id", nextId("feedback_seq"))
+                .bind("userId", userId)
+                .bind("createdDate", createdDate)
+                .bind("comment", comment)
+                .bind("rating", rating)
+                .bind("bookId", bookId)
+                .then()
+                .block();
+    }
+
+    private Integer nextId(String sequence) {
+        return databaseClient.sql("SELECT nextval('" + sequence + "')")
+                .map((row, metadata) -> row.get(0, Long.class).intValue())
+                .one()
+                .block();
+    }
+
+    private void execute(String sql, Integer id) {
+        databaseClient.sql(sql).bind("id", id).then().block();
+    }
+}
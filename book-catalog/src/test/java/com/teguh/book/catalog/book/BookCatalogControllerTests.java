@@ -0,0 +1,122 @@
+package com.teguh.book.catalog.book;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.teguh.book.book.BookVersion;
+import com.teguh.book.catalog.CatalogTestData;
+import com.teguh.book.security.JwtService;
+
+/*
+ * The catalogue answers book reads with the same body, ETag and status as
+ * book-networks: the ETag is the one BookVersion gives book-networks for the
+ * same row, and the rate is the rounded average of the feedbacks.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+class BookCatalogControllerTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private DatabaseClient databaseClient;
+    @Autowired
+    private JwtService jwtService;
+
+    private CatalogTestData data;
+    private String readerToken;
+
+    @BeforeEach
+    void setUp() {
+        data = new CatalogTestData(databaseClient, jwtService).insert();
+        readerToken = data.accessToken(data.readerId, UUID.randomUUID());
+    }
+
+    @AfterEach
+    void tearDown() {
+        data.delete();
+    }
+
+    @Test
+    void findBookByIdAnswersTheBookWithItsVersionETag() {
+        String eTag = new BookVersion(data.bookId, data.bookCreatedDate, null, 2L).toETag();
+
+        webTestClient.get().uri("/books/{id}", data.bookId)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + readerToken)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, eTag)
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "no-cache, private")
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(data.bookId)
+                .jsonPath("$.title").isEqualTo(CatalogTestData.TITLE)
+                .jsonPath("$.authorName").isEqualTo("Author")
+                .jsonPath("$.isbn").isEqualTo("catalog-" + data.bookId)
+                .jsonPath("$.synopsis").isEqualTo("Synopsis")
+                .jsonPath("$.owner").isEqualTo("owner Test")
+                .jsonPath("$.rate").isEqualTo(3.5)
+                .jsonPath("$.archived").isEqualTo(false)
+                .jsonPath("$.shareable").isEqualTo(true)
+                .jsonPath("$.coverUrl").doesNotExist();
+    }
+
+    @Test
+    void findBookByIdAnswersNotModifiedForTheCurrentETag() {
+        String eTag = webTestClient.get().uri("/books/{id}", data.bookId)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + readerToken)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+
+        webTestClient.get().uri("/books/{id}", data.bookId)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + readerToken)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void findAllListsTheDisplayableBooksNewestFirst() {
+        Long displayable = databaseClient.sql("""
+                SELECT COUNT(*) FROM book WHERE archived = false AND shareable = true AND owner_id <> :userId
+                """)
+                .bind("userId", data.readerId)
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one()
+                .block();
+
+        webTestClient.get().uri("/books?page=0&size=5")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + readerToken)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[0].id").isEqualTo(data.bookId)
+                .jsonPath("$.content.length()").isEqualTo(5)
+                .jsonPath("$.number").isEqualTo(0)
+                .jsonPath("$.size").isEqualTo(5)
+                .jsonPath("$.totalElements").isEqualTo(displayable)
+                .jsonPath("$.first").isEqualTo(true);
+    }
+
+    @Test
+    void findAllLeavesOutTheConnectedUsersOwnBooks() {
+        webTestClient.get().uri("/books?page=0&size=5")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + data.accessToken(data.ownerId, UUID.randomUUID()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[?(@.id == " + data.bookId + ")]").doesNotExist();
+    }
+}
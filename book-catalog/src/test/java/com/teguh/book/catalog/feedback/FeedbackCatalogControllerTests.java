@@ -0,0 +1,112 @@
+package com.teguh.book.catalog.feedback;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.teguh.book.catalog.CatalogTestData;
+import com.teguh.book.feedback.FeedbackPageVersion;
+import com.teguh.book.security.JwtService;
+
+/*
+ * Feedback pages in book-networks' order (by id) and shape, with the ETag
+ * FeedbackPageVersion gives book-networks for the same page and user.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+class FeedbackCatalogControllerTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private DatabaseClient databaseClient;
+    @Autowired
+    private JwtService jwtService;
+
+    private CatalogTestData data;
+    private String readerToken;
+
+    @BeforeEach
+    void setUp() {
+        data = new CatalogTestData(databaseClient, jwtService).insert();
+        readerToken = data.accessToken(data.readerId, UUID.randomUUID());
+    }
+
+    @AfterEach
+    void tearDown() {
+        data.delete();
+    }
+
+    @Test
+    void findAllFeedbacksByBookMarksTheConnectedUsersOwn() {
+        String eTag = new FeedbackPageVersion(2L, data.lastFeedbackDate).toETag(data.bookId, data.readerId, 0, 10);
+
+        webTestClient.get().uri("/feedbacks/book/{id}", data.bookId)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + readerToken)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, eTag)
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(2)
+                .jsonPath("$.content[0].rating").isEqualTo(4.0)
+                .jsonPath("$.content[0].command").isEqualTo("Good")
+                .jsonPath("$.content[0].ownFeedback").isEqualTo(true)
+                .jsonPath("$.content[1].rating").isEqualTo(3.0)
+                .jsonPath("$.content[1].command").isEqualTo("Fine")
+                .jsonPath("$.content[1].ownFeedback").isEqualTo(false)
+                .jsonPath("$.totalElements").isEqualTo(2)
+                .jsonPath("$.totalPages").isEqualTo(1)
+                .jsonPath("$.last").isEqualTo(true);
+    }
+
+    @Test
+    void findAllFeedbacksByBookPagesBySize() {
+        webTestClient.get().uri("/feedbacks/book/{id}?page=1&size=1", data.bookId)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + readerToken)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(1)
+                .jsonPath("$.content[0].command").isEqualTo("Fine")
+                .jsonPath("$.number").isEqualTo(1)
+                .jsonPath("$.totalPages").isEqualTo(2)
+                .jsonPath("$.first").isEqualTo(false)
+                .jsonPath("$.last").isEqualTo(true);
+    }
+
+    @Test
+    void findAllFeedbacksByBookAnswersNotModifiedForTheCurrentETag() {
+        String eTag = new FeedbackPageVersion(2L, data.lastFeedbackDate).toETag(data.bookId, data.readerId, 0, 10);
+
+        webTestClient.get().uri("/feedbacks/book/{id}", data.bookId)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + readerToken)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void feedbackPageETagIsPerUser() {
+        String otherToken = data.accessToken(data.otherReaderId, UUID.randomUUID());
+        String readerETag = new FeedbackPageVersion(2L, data.lastFeedbackDate)
+                .toETag(data.bookId, data.readerId, 0, 10);
+
+        // ownFeedback differs between the two users, so one's ETag must not validate the other's page
+        webTestClient.get().uri("/feedbacks/book/{id}", data.bookId)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + otherToken)
+                .header(HttpHeaders.IF_NONE_MATCH, readerETag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[1].ownFeedback").isEqualTo(true);
+    }
+}
@@ -0,0 +1,106 @@
+package com.teguh.book.catalog.security;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.teguh.book.catalog.CatalogTestData;
+import com.teguh.book.security.JwtService;
+
+/*
+ * Tokens get the answers book-networks gives them: 403 without a token, with
+ * one that does not parse or verify, and with one of a revoked session.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+class JwtAuthenticationTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private DatabaseClient databaseClient;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private CatalogRevocationRegistry revocationRegistry;
+
+    private CatalogTestData data;
+    private UUID revokedSessionId;
+
+    @BeforeEach
+    void setUp() {
+        data = new CatalogTestData(databaseClient, jwtService).insert();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (revokedSessionId != null) {
+            databaseClient.sql("DELETE FROM token_revocation WHERE session_id = :sessionId")
+                    .bind("sessionId", revokedSessionId)
+                    .then()
+                    .block();
+            revocationRegistry.reload().block();
+        }
+        data.delete();
+    }
+
+    @Test
+    void requestWithoutTokenIsForbidden() {
+        webTestClient.get().uri("/books/{id}", data.bookId)
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    void forgedTokenIsForbidden() {
+        webTestClient.get().uri("/books/{id}", data.bookId)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer not.a.token")
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    void tokenOfARevokedSessionIsForbidden() {
+        revokedSessionId = UUID.randomUUID();
+        String token = data.accessToken(data.readerId, revokedSessionId);
+        webTestClient.get().uri("/books/{id}", data.bookId)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk();
+
+        databaseClient.sql("""
+                INSERT INTO token_revocation (id, session_id, revoked_at, expires_at)
+                VALUES (nextval('token_revocation_seq'), :sessionId, :now, :expiresAt)
+                """)
+                .bind("sessionId", revokedSessionId)
+                .bind("now", LocalDateTime.now())
+                .bind("expiresAt", LocalDateTime.now().plusHours(1))
+                .then()
+                .block();
+        revocationRegistry.reload().block();
+
+        webTestClient.get().uri("/books/{id}", data.bookId)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    void tokenWithoutUserIdClaimIsLookedUpBySubject() {
+        webTestClient.get().uri("/feedbacks/book/{id}", data.bookId)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + data.legacyAccessToken(data.readerId))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[0].ownFeedback").isEqualTo(true);
+    }
+}
@@ -0,0 +1,38 @@
+package com.teguh.book.loadtest;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+
+import com.teguh.book.loadtest.generator.DataGenerator;
+import com.teguh.book.loadtest.scenario.LoadRunner;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * java -jar book-loadtest.jar generate : bulk loads the synthetic data set
+ * java -jar book-loadtest.jar run      : runs the scenarios against a started backend
+ * Scale and load are set with --loadtest.* arguments, see application.yml.
+ */
+@Slf4j
+@SpringBootApplication
+public class LoadTestApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(LoadTestApplication.class, args);
+	}
+
+	@Bean
+	public CommandLineRunner runner(DataGenerator dataGenerator, LoadRunner loadRunner) {
+		return args -> {
+			String command = args.length == 0 ? "" : args[0];
+			switch (command) {
+				case "generate" -> dataGenerator.generate();
+				case "run" -> loadRunner.run();
+				default -> log.error("Usage: book-loadtest (generate | run) [--loadtest.*=...]");
+			}
+		};
+	}
+
+}
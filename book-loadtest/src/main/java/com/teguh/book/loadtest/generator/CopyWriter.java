@@ -0,0 +1,68 @@
+package com.teguh.book.loadtest.generator;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import lombok.Getter;
+
+/*
+ * Streams CSV rows into COPY ... FROM STDIN. Rows are sent a few megabytes at
+ * a time, so a large table never sits in memory whole.
+ */
+class CopyWriter implements AutoCloseable {
+    private static final int FLUSH_CHARS = 8 * 1024 * 1024;
+
+    private final CopyManager copyManager;
+    private final String sql;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_CHARS + 4096);
+    @Getter
+    private long rows;
+
+    CopyWriter(Connection connection, String table, String columns) throws SQLException {
+        this.copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        this.sql = "COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv)";
+    }
+
+    void row(Object... values) throws SQLException, IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buffer.append(',');
+            }
+            append(values[i]);
+        }
+        buffer.append('\n');
+        rows++;
+        if (buffer.length() >= FLUSH_CHARS) {
+            flush();
+        }
+    }
+
+    // An unquoted empty field is NULL in CSV format
+    private void append(Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof String text) {
+            buffer.append('"').append(text.replace("\"", "\"\"")).append('"');
+        } else {
+            buffer.append(value);
+        }
+    }
+
+    private void flush() throws SQLException, IOException {
+        copyManager.copyIn(sql, new StringReader(buffer.toString()));
+        buffer.setLength(0);
+    }
+
+    @Override
+    public void close() throws SQLException, IOException {
+        if (!buffer.isEmpty()) {
+            flush();
+        }
+    }
+}
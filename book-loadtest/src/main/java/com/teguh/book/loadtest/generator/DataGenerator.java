@@ -0,0 +1,332 @@
+package com.teguh.book.loadtest.generator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Bulk loads users, books (some with a cover file), a loan history spread over
+ * several years and feedbacks straight into the schema book-networks created,
+ * through COPY. Ids are reserved from the entity sequences first, so a running
+ * instance keeps allocating ids past the generated rows. The same seed always
+ * produces the same data set.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class DataGenerator {
+    private static final String[] FIRST_NAMES = {
+            "Ayu", "Budi", "Citra", "Dewi", "Eko", "Fajar", "Gita", "Hadi", "Indah", "Joko",
+            "Kartika", "Lestari", "Made", "Nadia", "Oka", "Putri", "Rizky", "Sari", "Teguh", "Wulan" };
+    private static final String[] LAST_NAMES = {
+            "Santoso", "Wijaya", "Saputra", "Hidayat", "Kusuma", "Pratama", "Nugroho", "Lestari",
+            "Setiawan", "Halim", "Gunawan", "Susanto", "Wibowo", "Utami", "Siregar", "Nasution" };
+    private static final String[] TITLE_WORDS = {
+            "Silent", "River", "Garden", "Night", "Journey", "Shadow", "Light", "Island", "Mountain", "Letters",
+            "Empire", "Memory", "Winter", "Ocean", "Secret", "House", "Dream", "Storm", "Road", "Stars" };
+    private static final String[] COMMENTS = {
+            "Could not put it down", "A slow start but worth it", "Not my kind of book",
+            "Beautifully written", "The ending felt rushed", "Would borrow again",
+            "Great for a weekend", "Characters felt flat", "A classic for a reason", "Too long" };
+    private static final double[] RATINGS = { 1.0, 1.5, 2.0, 2.5, 3.0, 3.5, 4.0, 4.5, 5.0 };
+    // Skewed toward four stars, like most review sites
+    private static final int[] RATING_WEIGHTS = { 3, 1, 3, 2, 8, 8, 20, 15, 15 };
+    private static final int COVER_VARIANTS = 16;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${loadtest.password}")
+    private String password;
+    @Value("${loadtest.generator.seed}")
+    private long seed;
+    @Value("${loadtest.generator.users}")
+    private int users;
+    @Value("${loadtest.generator.books-per-user}")
+    private int booksPerUser;
+    @Value("${loadtest.generator.feedbacks-per-book}")
+    private int feedbacksPerBook;
+    @Value("${loadtest.generator.history-years}")
+    private int historyYears;
+    @Value("${loadtest.generator.loans-per-user-per-year}")
+    private int loansPerUserPerYear;
+    @Value("${loadtest.generator.active-loan-ratio}")
+    private double activeLoanRatio;
+    @Value("${loadtest.generator.cover.ratio}")
+    private double coverRatio;
+    @Value("${loadtest.generator.cover.size}")
+    private DataSize coverSize;
+    @Value("${loadtest.generator.cover.dir}")
+    private Path coverDir;
+    @Value("${loadtest.generator.cover.stored-path}")
+    private String coverStoredPath;
+
+    public static String email(int userId) {
+        return "loadtest-" + userId + "@book.test";
+    }
+
+    @Transactional
+    public void generate() throws SQLException, IOException {
+        long started = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime historyStart = now.minusYears(historyYears);
+        int historySeconds = (int) ChronoUnit.SECONDS.between(historyStart, now);
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+
+        int firstUserId = generateUsers(connection, random, historyStart);
+
+        int[] bookCounts = new int[users];
+        int totalBooks = 0;
+        for (int i = 0; i < users; i++) {
+            bookCounts[i] = random.nextInt(2 * booksPerUser + 1);
+            totalBooks += bookCounts[i];
+        }
+        if (users < 2 || totalBooks == 0) {
+            throw new IllegalStateException("Generating loans needs at least two users and one book");
+        }
+        int firstBookId = reserveIds("book", totalBooks);
+        int[] bookOwners = new int[totalBooks];
+        // Seconds after historyStart, so loans and feedbacks come after the book
+        int[] bookCreated = new int[totalBooks];
+        long covers = generateBooks(connection, random, historyStart, historySeconds,
+                firstUserId, bookCounts, firstBookId, bookOwners, bookCreated);
+
+        long loans = generateLoans(connection, random, historyStart, historySeconds, now,
+                firstUserId, firstBookId, bookOwners, bookCreated);
+        long feedbacks = generateFeedbacks(connection, random, historyStart, historySeconds,
+                firstUserId, firstBookId, bookOwners, bookCreated);
+
+        int summaries = createRatingSummaries(firstBookId, firstBookId + totalBooks - 1);
+        jdbcTemplate.execute("ANALYZE _user, book, book_transaction_history, feedback, book_rating_summary");
+
+        log.info("Generated {} users (ids from {}), {} books ({} with a cover), {} loans over {} years, "
+                + "{} feedbacks and {} rating summaries in {} s",
+                users, firstUserId, totalBooks, covers, loans, historyYears, feedbacks, summaries,
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+    }
+
+    private int generateUsers(Connection connection, SplittableRandom random, LocalDateTime historyStart)
+            throws SQLException, IOException {
+        int roleId = userRoleId();
+        int firstUserId = reserveIds("_user", users);
+        // One hash for everybody: BCrypt is deliberately slow
+        String passwordHash = new BCryptPasswordEncoder().encode(password);
+        // Resources close in reverse order: the users reach the database before their roles
+        try (CopyWriter roleWriter = new CopyWriter(connection, "_user_roles", "users_id, roles_id");
+                CopyWriter userWriter = new CopyWriter(connection, "_user",
+                        "id, email, firstname, lastname, password, date_of_birth, enabled, account_locked, created_date")) {
+            for (int i = 0; i < users; i++) {
+                int userId = firstUserId + i;
+                userWriter.row(userId, email(userId), pick(random, FIRST_NAMES), pick(random, LAST_NAMES), passwordHash,
+                        LocalDate.of(1950 + random.nextInt(55), 1 + random.nextInt(12), 1 + random.nextInt(28)),
+                        true, false, historyStart.minusDays(random.nextInt(365)));
+                roleWriter.row(userId, roleId);
+            }
+        }
+        return firstUserId;
+    }
+
+    private long generateBooks(Connection connection, SplittableRandom random, LocalDateTime historyStart,
+            int historySeconds, int firstUserId, int[] bookCounts, int firstBookId, int[] bookOwners,
+            int[] bookCreated) throws SQLException, IOException {
+        byte[][] coverVariants = new byte[COVER_VARIANTS][(int) coverSize.toBytes()];
+        for (byte[] variant : coverVariants) {
+            random.nextBytes(variant);
+        }
+        long covers = 0;
+        try (CopyWriter bookWriter = new CopyWriter(connection, "book",
+                "id, title, author_name, isbn, synopsis, owner_id, created_by, created_date, "
+                        + "archived, shareable, cover_book, trending_score")) {
+            int book = 0;
+            for (int i = 0; i < users; i++) {
+                int ownerId = firstUserId + i;
+                for (int j = 0; j < bookCounts[i]; j++, book++) {
+                    int bookId = firstBookId + book;
+                    bookOwners[book] = ownerId;
+                    bookCreated[book] = random.nextInt(historySeconds);
+                    String cover = null;
+                    if (random.nextDouble() < coverRatio) {
+                        cover = writeCover(ownerId, bookId, coverVariants[random.nextInt(COVER_VARIANTS)]);
+                        covers++;
+                    }
+                    String title = pick(random, TITLE_WORDS) + " " + pick(random, TITLE_WORDS);
+                    bookWriter.row(bookId, title,
+                            pick(random, FIRST_NAMES) + " " + pick(random, LAST_NAMES),
+                            String.valueOf(9_780_000_000_000L + random.nextLong(10_000_000_000L)),
+                            "A story about the " + title.toLowerCase() + ".",
+                            ownerId, ownerId, historyStart.plusSeconds(bookCreated[book]),
+                            random.nextInt(100) < 5, random.nextInt(100) < 90, cover, 0.0);
+                }
+            }
+        }
+        return covers;
+    }
+
+    /*
+     * Every past loan is returned and approved; only the active share is still
+     * out. A book may have several returned-but-unapproved loans only through
+     * the scenarios, never through the generator.
+     */
+    private long generateLoans(Connection connection, SplittableRandom random, LocalDateTime historyStart,
+            int historySeconds, LocalDateTime now, int firstUserId, int firstBookId, int[] bookOwners,
+            int[] bookCreated) throws SQLException, IOException {
+        int loansPerUser = historyYears * loansPerUserPerYear;
+        int loanId = reserveIds("book_transaction_history", Math.multiplyExact(users, loansPerUser));
+        try (CopyWriter loanWriter = new CopyWriter(connection, "book_transaction_history",
+                "id, user_id, book_id, created_by, created_date, last_modified_by, last_modified_date, "
+                        + "returned, return_approved")) {
+            for (int i = 0; i < users; i++) {
+                int borrowerId = firstUserId + i;
+                for (int j = 0; j < loansPerUser; j++, loanId++) {
+                    int book = random.nextInt(bookOwners.length);
+                    if (bookOwners[book] == borrowerId) {
+                        continue;
+                    }
+                    LocalDateTime borrowedAt = historyStart.plusSeconds(
+                            bookCreated[book] + random.nextInt(historySeconds - bookCreated[book] + 1));
+                    boolean active = random.nextDouble() < activeLoanRatio;
+                    LocalDateTime returnedAt = borrowedAt.plusDays(1 + random.nextInt(30));
+                    loanWriter.row(loanId, borrowerId, firstBookId + book, borrowerId, borrowedAt,
+                            active ? null : bookOwners[book],
+                            active ? null : (returnedAt.isAfter(now) ? now : returnedAt),
+                            !active, !active);
+                }
+            }
+            return loanWriter.getRows();
+        }
+    }
+
+    private long generateFeedbacks(Connection connection, SplittableRandom random, LocalDateTime historyStart,
+            int historySeconds, int firstUserId, int firstBookId, int[] bookOwners, int[] bookCreated)
+            throws SQLException, IOException {
+        int maxPerBook = Math.min(2 * feedbacksPerBook, Math.min(users - 1, Byte.MAX_VALUE));
+        byte[] feedbackCounts = new byte[bookOwners.length];
+        int totalFeedbacks = 0;
+        for (int book = 0; book < bookOwners.length; book++) {
+            feedbackCounts[book] = (byte) random.nextInt(maxPerBook + 1);
+            totalFeedbacks += feedbackCounts[book];
+        }
+        int feedbackId = reserveIds("feedback", totalFeedbacks);
+        int ratingWeightSum = 0;
+        for (int weight : RATING_WEIGHTS) {
+            ratingWeightSum += weight;
+        }
+        int[] reviewers = new int[maxPerBook];
+        try (CopyWriter feedbackWriter = new CopyWriter(connection, "feedback",
+                "id, book_id, created_by, created_date, rating, comment")) {
+            for (int book = 0; book < bookOwners.length; book++) {
+                // One feedback per user and book, never by the owner
+                int count = 0;
+                while (count < feedbackCounts[book]) {
+                    int reviewerId = firstUserId + random.nextInt(users);
+                    if (reviewerId == bookOwners[book] || contains(reviewers, count, reviewerId)) {
+                        continue;
+                    }
+                    reviewers[count++] = reviewerId;
+                    feedbackWriter.row(feedbackId++, firstBookId + book, reviewerId,
+                            historyStart.plusSeconds(
+                                    bookCreated[book] + random.nextInt(historySeconds - bookCreated[book] + 1)),
+                            rating(random, ratingWeightSum), pick(random, COMMENTS));
+                }
+            }
+            return feedbackWriter.getRows();
+        }
+    }
+
+    // Same buckets as BookRatingSummaryRepository.backfill, limited to the generated books
+    private int createRatingSummaries(int firstBookId, int lastBookId) {
+        return jdbcTemplate.update("""
+                INSERT INTO book_rating_summary
+                    (book_id, total_count, rating_sum, one_star, two_star, three_star, four_star, five_star)
+                SELECT feedback.book_id, COUNT(feedback.rating), SUM(feedback.rating),
+                    COUNT(*) FILTER (WHERE CEIL(feedback.rating) <= 1),
+                    COUNT(*) FILTER (WHERE CEIL(feedback.rating) = 2),
+                    COUNT(*) FILTER (WHERE CEIL(feedback.rating) = 3),
+                    COUNT(*) FILTER (WHERE CEIL(feedback.rating) = 4),
+                    COUNT(*) FILTER (WHERE CEIL(feedback.rating) >= 5)
+                FROM feedback
+                WHERE feedback.book_id BETWEEN ? AND ?
+                GROUP BY feedback.book_id
+                ON CONFLICT (book_id) DO NOTHING
+                """, firstBookId, lastBookId);
+    }
+
+    private int userRoleId() {
+        return jdbcTemplate.queryForList("SELECT id FROM role WHERE name = 'USER'", Integer.class)
+                .stream()
+                .findFirst()
+                .orElseGet(() -> {
+                    int roleId = reserveIds("role", 1);
+                    jdbcTemplate.update("INSERT INTO role (id, name, created_date) VALUES (?, 'USER', now())", roleId);
+                    return roleId;
+                });
+    }
+
+    /*
+     * Takes count ids starting one increment past the current sequence value,
+     * beyond any block an instance may hold (and beyond rows inserted without
+     * the sequence), and moves the sequence past them.
+     */
+    private int reserveIds(String table, int count) {
+        String sequence = table + "_seq";
+        long increment = jdbcTemplate.queryForObject(
+                "SELECT increment_by FROM pg_sequences WHERE sequencename = ?", Long.class, sequence);
+        long next = jdbcTemplate.queryForObject("SELECT nextval(?)", Long.class, sequence);
+        long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        long first = Math.max(next, maxId) + increment;
+        jdbcTemplate.queryForObject("SELECT setval(?, ?)", Long.class, sequence, first + count + increment);
+        return Math.toIntExact(first);
+    }
+
+    private String writeCover(int ownerId, int bookId, byte[] content) throws IOException {
+        Path folder = coverDir.resolve("user").resolve(String.valueOf(ownerId));
+        Files.createDirectories(folder);
+        Files.write(folder.resolve(bookId + ".jpg"), content);
+        return coverStoredPath + "/user/" + ownerId + "/" + bookId + ".jpg";
+    }
+
+    private double rating(SplittableRandom random, int weightSum) {
+        int target = random.nextInt(weightSum);
+        for (int i = 0; i < RATINGS.length; i++) {
+            target -= RATING_WEIGHTS[i];
+            if (target < 0) {
+                return RATINGS[i];
+            }
+        }
+        return RATINGS[RATINGS.length - 1];
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,93 @@
+package com.teguh.book.loadtest.scenario;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Latency histogram and outcome counters per endpoint. 2xx and 3xx are ok,
+ * 4xx are rejections (the API refusing a loan that another user already took,
+ * a second feedback, the rate limiter), and 5xx or an I/O failure are errors.
+ */
+@Component
+@Slf4j
+public class LoadReport {
+    private static final String HEADER = "endpoint,requests,ok,rejected,errors,req_per_s,p50_ms,p90_ms,p99_ms,p999_ms,max_ms";
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+
+    @Value("${loadtest.run.report-dir}")
+    private Path reportDir;
+
+    public void record(String endpoint, int status, long nanos) {
+        EndpointStats stats = endpoints.computeIfAbsent(endpoint, key -> new EndpointStats());
+        stats.latency.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos)));
+        if (status >= 200 && status < 400) {
+            stats.ok.increment();
+        } else if (status >= 400 && status < 500) {
+            stats.rejected.increment();
+        } else {
+            stats.errors.increment();
+        }
+        requests.increment();
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    public void print(long elapsedNanos) throws IOException {
+        double seconds = elapsedNanos / 1e9;
+        Map<String, EndpointStats> sorted = new TreeMap<>(endpoints);
+        StringBuilder table = new StringBuilder(String.format("%n%-42s %9s %9s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "ok", "rejected", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        Files.createDirectories(reportDir);
+        Path csv = reportDir.resolve("report-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv");
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(csv))) {
+            writer.println(HEADER);
+            for (Map.Entry<String, EndpointStats> entry : sorted.entrySet()) {
+                EndpointStats stats = entry.getValue();
+                Histogram latency = stats.latency;
+                Object[] row = {
+                        entry.getKey(), latency.getTotalCount(), stats.ok.sum(), stats.rejected.sum(), stats.errors.sum(),
+                        latency.getTotalCount() / seconds,
+                        millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(90)),
+                        millis(latency.getValueAtPercentile(99)), millis(latency.getValueAtPercentile(99.9)),
+                        millis(latency.getMaxValue()) };
+                table.append(String.format("%-42s %9d %9d %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", row));
+                writer.println(String.format("\"%s\",%d,%d,%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f", row));
+            }
+        }
+        log.info("{} requests in {} s, {} req/s{}", requests(), Math.round(seconds),
+                Math.round(requests() / seconds), table);
+        log.info("Report written to {}", csv.toAbsolutePath());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static class EndpointStats {
+        // Microseconds, 3 significant digits, resizes itself
+        private final Histogram latency = new ConcurrentHistogram(3);
+        private final LongAdder ok = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,79 @@
+package com.teguh.book.loadtest.scenario;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Closed model: a fixed number of virtual users, started evenly over the
+ * ramp-up, each running one scenario after another until the duration is
+ * over. Throughput is what the API sustains at that concurrency, so sizing
+ * runs should step the user count up until the latency percentiles bend.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LoadRunner {
+    private final Scenarios scenarios;
+    private final LoadReport report;
+
+    @Value("${loadtest.run.users}")
+    private int users;
+    @Value("${loadtest.run.duration}")
+    private Duration duration;
+    @Value("${loadtest.run.ramp-up}")
+    private Duration rampUp;
+    @Value("${loadtest.run.think-time}")
+    private Duration thinkTime;
+    @Value("${loadtest.generator.seed}")
+    private long seed;
+
+    public void run() throws InterruptedException, IOException {
+        scenarios.load();
+        ExecutorService virtualUsers = Executors.newFixedThreadPool(users);
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor();
+        long started = System.nanoTime();
+        long deadline = started + duration.toNanos();
+        SplittableRandom root = new SplittableRandom(seed);
+
+        log.info("Running {} virtual users for {} (ramp-up {})", users, duration, rampUp);
+        for (int i = 0; i < users; i++) {
+            long delay = rampUp.toNanos() * i / users;
+            SplittableRandom random = root.split();
+            virtualUsers.execute(() -> virtualUser(random, started + delay, deadline));
+        }
+        progress.scheduleAtFixedRate(() -> log.info("{} s, {} requests",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started), report.requests()), 10, 10, TimeUnit.SECONDS);
+
+        virtualUsers.shutdown();
+        virtualUsers.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        progress.shutdownNow();
+        report.print(System.nanoTime() - started);
+    }
+
+    private void virtualUser(SplittableRandom random, long startAt, long deadline) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(startAt - System.nanoTime());
+            while (System.nanoTime() < deadline) {
+                try {
+                    scenarios.runOne(random);
+                } catch (RuntimeException e) {
+                    log.warn("Scenario failed: {}", e.getMessage());
+                }
+                TimeUnit.NANOSECONDS.sleep(thinkTime.toNanos());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
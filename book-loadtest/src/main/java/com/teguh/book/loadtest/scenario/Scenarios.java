@@ -0,0 +1,222 @@
+package com.teguh.book.loadtest.scenario;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * The user journeys a virtual user picks from, by weight. Actors are drawn from
+ * the generated users (all share one password). Logins are cached per user
+ * until the token is close to expiring, the way the UI keeps its token.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class Scenarios {
+    private static final String[] COMMENTS = { "Loved it", "Not for me", "Great pacing", "Too long", "Would borrow again" };
+
+    private final ApiClient api;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Integer, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger registrations = new AtomicInteger();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    @Value("${loadtest.password}")
+    private String password;
+    @Value("${loadtest.run.token-ttl:10m}")
+    private Duration tokenTtl;
+    @Value("${loadtest.run.actors:0}")
+    private int actors;
+    @Value("${loadtest.generator.cover.size}")
+    private DataSize coverSize;
+    @Value("${loadtest.run.weights.browse}")
+    private int browseWeight;
+    @Value("${loadtest.run.weights.borrow}")
+    private int borrowWeight;
+    @Value("${loadtest.run.weights.feedback}")
+    private int feedbackWeight;
+    @Value("${loadtest.run.weights.cover}")
+    private int coverWeight;
+    @Value("${loadtest.run.weights.register}")
+    private int registerWeight;
+
+    private Map<Integer, String> emails;
+    private int[] userIds;
+    private int[] bookIds;
+    private int[] bookOwners;
+    private byte[] cover;
+    private int[] cumulativeWeights;
+
+    private record Session(String token, long expiresAt) {
+    }
+
+    public void load() {
+        emails = new ConcurrentHashMap<>();
+        jdbcTemplate.query("SELECT id, email FROM _user WHERE email LIKE 'loadtest-%@book.test' AND enabled",
+                row -> {
+                    emails.put(row.getInt("id"), row.getString("email"));
+                });
+        userIds = emails.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        if (actors > 0 && actors < userIds.length) {
+            // A small pool logs in once per user, so the run measures the scenarios rather than BCrypt
+            userIds = Arrays.copyOf(userIds, actors);
+            emails.keySet().retainAll(Arrays.stream(userIds).boxed().toList());
+        }
+        List<int[]> books = jdbcTemplate.query("""
+                SELECT book.id, book.owner_id
+                FROM book
+                JOIN _user owner ON owner.id = book.owner_id
+                WHERE book.archived = false
+                AND book.shareable = true
+                AND owner.email LIKE 'loadtest-%@book.test'
+                ORDER BY book.id
+                """, (row, rowNum) -> new int[] { row.getInt("id"), row.getInt("owner_id") });
+        books.removeIf(book -> !emails.containsKey(book[1]));
+        if (userIds.length < 2 || books.isEmpty()) {
+            throw new IllegalStateException("No generated users or books found, run the generate command first");
+        }
+        bookIds = books.stream().mapToInt(book -> book[0]).toArray();
+        bookOwners = books.stream().mapToInt(book -> book[1]).toArray();
+        cover = new byte[(int) coverSize.toBytes()];
+        new SplittableRandom().nextBytes(cover);
+        int[] weights = { browseWeight, borrowWeight, feedbackWeight, coverWeight, registerWeight };
+        cumulativeWeights = new int[weights.length];
+        for (int i = 0, sum = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cumulativeWeights[i] = sum;
+        }
+        log.info("Scenarios use {} users and {} shareable books", userIds.length, bookIds.length);
+    }
+
+    public void runOne(SplittableRandom random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        if (pick < cumulativeWeights[0]) {
+            browse(random);
+        } else if (pick < cumulativeWeights[1]) {
+            borrowLifecycle(random);
+        } else if (pick < cumulativeWeights[2]) {
+            feedback(random);
+        } else if (pick < cumulativeWeights[3]) {
+            coverUpload(random);
+        } else {
+            register();
+        }
+    }
+
+    // Feed page, then a book with its feedbacks and rating histogram
+    void browse(SplittableRandom random) {
+        String token = token(userIds[random.nextInt(userIds.length)]);
+        if (token == null) {
+            return;
+        }
+        String sort = random.nextInt(4) == 0 ? "TRENDING" : "NEWEST";
+        api.get("GET /books", "/books?page=" + random.nextInt(10) + "&size=10&sort=" + sort, token);
+        int bookId = bookIds[random.nextInt(bookIds.length)];
+        api.get("GET /books/{id}", "/books/" + bookId, token);
+        api.get("GET /feedbacks/book/{id}", "/feedbacks/book/" + bookId + "?page=0&size=10", token);
+        api.get("GET /feedbacks/book/{id}/summary", "/feedbacks/book/" + bookId + "/summary", token);
+    }
+
+    // Borrow, return and the owner's approval; stops at the first refusal
+    void borrowLifecycle(SplittableRandom random) {
+        int book = random.nextInt(bookIds.length);
+        int bookId = bookIds[book];
+        String borrowerToken = token(otherUser(random, bookOwners[book]));
+        if (borrowerToken == null
+                || !api.post("POST /books/borrow/{id}", "/books/borrow/" + bookId, borrowerToken, Map.of()).ok()
+                || !api.patch("PATCH /books/borrow/return/{id}", "/books/borrow/return/" + bookId, borrowerToken).ok()) {
+            return;
+        }
+        String ownerToken = token(bookOwners[book]);
+        if (ownerToken != null) {
+            api.patch("PATCH /books/borrow/return/approve/{id}", "/books/borrow/return/approve/" + bookId, ownerToken);
+        }
+    }
+
+    void feedback(SplittableRandom random) {
+        int book = random.nextInt(bookIds.length);
+        String token = token(otherUser(random, bookOwners[book]));
+        if (token == null) {
+            return;
+        }
+        api.post("POST /feedbacks", "/feedbacks", token, Map.of(
+                "rating", 1 + random.nextInt(9) / 2.0,
+                "comment", COMMENTS[random.nextInt(COMMENTS.length)],
+                "bookId", bookIds[book]));
+    }
+
+    void coverUpload(SplittableRandom random) {
+        int book = random.nextInt(bookIds.length);
+        String token = token(bookOwners[book]);
+        if (token != null) {
+            api.upload("POST /books/cover/{id}", "/books/cover/" + bookIds[book], token, "cover.jpg", cover);
+        }
+    }
+
+    /*
+     * The activation code is read from the token table rather than from the
+     * SMTP stand-in; the mail is still sent, so the mail path carries its load.
+     */
+    void register() {
+        String email = "loadtest-reg-" + runId + "-" + registrations.incrementAndGet() + "@book.test";
+        if (!api.post("POST /auth/register", "/auth/register", null, Map.of(
+                "firstname", "Load",
+                "lastname", "Test",
+                "email", email,
+                "password", password)).ok()) {
+            return;
+        }
+        List<String> codes = jdbcTemplate.queryForList("""
+                SELECT token.token
+                FROM token
+                JOIN _user ON _user.id = token.user_id
+                WHERE _user.email = ?
+                ORDER BY token.id DESC
+                LIMIT 1
+                """, String.class, email);
+        if (codes.isEmpty()
+                || !api.get("GET /auth/activate-account", "/auth/activate-account?token=" + codes.get(0), null).ok()) {
+            return;
+        }
+        login(email);
+    }
+
+    private int otherUser(SplittableRandom random, int userId) {
+        int other;
+        do {
+            other = userIds[random.nextInt(userIds.length)];
+        } while (other == userId);
+        return other;
+    }
+
+    private String token(int userId) {
+        Session session = sessions.get(userId);
+        if (session == null || session.expiresAt() < System.currentTimeMillis()) {
+            String token = login(emails.get(userId));
+            if (token == null) {
+                return null;
+            }
+            session = new Session(token, System.currentTimeMillis() + tokenTtl.toMillis());
+            sessions.put(userId, session);
+        }
+        return session.token();
+    }
+
+    private String login(String email) {
+        ApiClient.Response response = api.post("POST /auth/authenticate", "/auth/authenticate", null,
+                Map.of("email", email, "password", password));
+        return response.ok() ? api.read(response).path("token").asText(null) : null;
+    }
+}
@@ -0,0 +1,121 @@
+#!/usr/bin/env bash
+# Smoke tests the API as a GraalVM native executable (mvn -Pnative native:compile) and
+# as a JVM jar, and reports time to first request and resident memory for both.
+#   scripts/native-smoke-test.sh              jvm and native
+#   MODES=native scripts/native-smoke-test.sh only the native executable
+# Needs the database from docker-compose. PSQL is a command that runs one SQL
+# statement; it reads the smoke user's activation code instead of the activation mail.
+set -euo pipefail
+
+MODES=${MODES:-"jvm native"}
+PORT=${PORT:-8098}
+BASE="http://localhost:$PORT/api/v1"
+TARGET="$(cd "$(dirname "$0")/.." && pwd)/target"
+read -r -a PSQL_CMD <<< "${PSQL:-docker exec -i posgres-sql-bsn psql -U username -d book_social_network -tAc}"
+export JWT_SECRET_KEY=${JWT_SECRET_KEY:-DLRopgThn+PQaVxAzUNdudmDlaNcw12g1VcJCVqi1oA98Z069xRwWa25S82KAQXa}
+
+FAILURES=0
+declare -A FIRST_REQUEST_MS RSS_MB
+
+check() {
+    local mode=$1 name=$2 expected=$3 actual=$4
+    if [ "$expected" = "$actual" ]; then
+        echo "smoke mode=$mode check=$name status=PASS"
+    else
+        echo "::error title=smoke $mode::$name expected $expected, got $actual"
+        FAILURES=$((FAILURES + 1))
+    fi
+}
+
+status() {
+    curl -s -o /dev/null -w '%{http_code}' "$@"
+}
+
+smoke() {
+    local mode=$1
+    local email="smoke-$mode-$(date +%s)@book.test"
+    local json='Content-Type: application/json'
+
+    check "$mode" register 202 "$(status -X POST "$BASE/auth/register" -H "$json" \
+        -d "{\"firstname\":\"Smoke\",\"lastname\":\"Test\",\"email\":\"$email\",\"password\":\"password123\"}")"
+    check "$mode" login-disabled 401 "$(status -X POST "$BASE/auth/authenticate" -H "$json" \
+        -d "{\"email\":\"$email\",\"password\":\"password123\"}")"
+
+    local code
+    code=$("${PSQL_CMD[@]}" "SELECT t.token FROM token t JOIN _user u ON u.id = t.user_id WHERE u.email = '$email'" | tr -d '[:space:]')
+    check "$mode" activate 200 "$(status "$BASE/auth/activate-account?token=$code")"
+    local token
+    token=$(curl -s -X POST "$BASE/auth/authenticate" -H "$json" -d "{\"email\":\"$email\",\"password\":\"password123\"}" \
+        | sed -n 's/.*"token":"\([^"]*\)".*/\1/p')
+    check "$mode" login "true" "$([ -n "$token" ] && echo true || echo false)"
+    local auth="Authorization: Bearer $token"
+
+    check "$mode" books-anonymous 403 "$(status "$BASE/books")"
+    check "$mode" books 200 "$(status "$BASE/books?sort=TRENDING" -H "$auth")"
+
+    local bookId
+    bookId=$(curl -s -X POST "$BASE/books" -H "$auth" -H "$json" \
+        -d '{"title":"Smoke","authorName":"Test","isbn":"SMOKE-1","synopsis":"Native smoke test","shareable":true}')
+    check "$mode" save-book "true" "$([[ "$bookId" =~ ^[0-9]+$ ]] && echo true || echo false)"
+
+    local etag
+    etag=$(curl -s -D - -o /dev/null "$BASE/books/$bookId" -H "$auth" | sed -n 's/^[Ee][Tt]ag: \(.*\)\r$/\1/p')
+    check "$mode" book-etag 304 "$(status "$BASE/books/$bookId" -H "$auth" -H "If-None-Match: $etag")"
+    check "$mode" rating-summary 200 "$(status "$BASE/feedbacks/book/$bookId/summary" -H "$auth")"
+    check "$mode" export "true" "$(curl -s "$BASE/exports/books/owner?format=NDJSON" -H "$auth" | grep -q '"title":"Smoke"' && echo true || echo false)"
+    check "$mode" api-docs 200 "$(status "$BASE/v3/api-docs")"
+}
+
+run() {
+    local mode=$1
+    local command
+    if [ "$mode" = native ]; then
+        if [ ! -x "$TARGET/book-network" ]; then
+            echo "::warning::$TARGET/book-network not found, run mvn -Pnative native:compile first"
+            return
+        fi
+        command=("$TARGET/book-network")
+    else
+        command=(java -jar "$TARGET/book-network-0.0.1-SNAPSHOT.jar")
+    fi
+
+    local log
+    log=$(mktemp)
+    local started
+    started=$(date +%s%N)
+    "${command[@]}" --spring.profiles.active=prod --server.port="$PORT" > "$log" 2>&1 &
+    local pid=$!
+
+    # First request: a login attempt, which goes through security, JPA and Jackson
+    until [ "$(status -X POST "$BASE/auth/authenticate" -H 'Content-Type: application/json' \
+        -d '{"email":"nobody@book.test","password":"password123"}')" != 000 ]; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "::error title=smoke $mode::application exited, see $log"
+            FAILURES=$((FAILURES + 1))
+            return
+        fi
+        sleep 0.05
+    done
+    FIRST_REQUEST_MS[$mode]=$((($(date +%s%N) - started) / 1000000))
+
+    smoke "$mode"
+    RSS_MB[$mode]=$(awk '/VmRSS/ { printf "%d", $2 / 1024 }' "/proc/$pid/status")
+    echo "::notice title=smoke $mode::first request after ${FIRST_REQUEST_MS[$mode]} ms, RSS ${RSS_MB[$mode]} MB after the smoke run"
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    rm -f "$log"
+}
+
+for mode in $MODES; do
+    run "$mode"
+done
+
+echo
+echo "| mode | time to first request (ms) | RSS (MB) |"
+echo "|------|----------------------------|----------|"
+for mode in $MODES; do
+    echo "| $mode | ${FIRST_REQUEST_MS[$mode]:--} | ${RSS_MB[$mode]:--} |"
+done
+
+[ "$FAILURES" -eq 0 ]
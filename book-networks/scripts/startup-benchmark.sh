@@ -0,0 +1,80 @@
+#!/usr/bin/env bash
+# Startup time of the API in three modes, from the build of `mvn -Pstartup package`:
+#   dev       plain jar, dev profile (everything eager)
+#   prod      same jar, prod profile (schema validate, lazy docs/mail, deferred repositories)
+#   prod-cds  prod profile with the AOT-generated context and the AppCDS archive
+# Needs the database from docker-compose. Prints one line per run, a median per
+# mode and exits 1 when MAX_STARTUP_SECONDS is set and a prod-cds median is above it.
+set -euo pipefail
+
+RUNS=${RUNS:-5}
+PORT=${PORT:-8099}
+MAX_STARTUP_SECONDS=${MAX_STARTUP_SECONDS:-}
+CDS_DIR="$(cd "$(dirname "$0")/.." && pwd)/target/cds"
+JAR=book-network-0.0.1-SNAPSHOT.jar
+
+if [ ! -f "$CDS_DIR/application.jsa" ]; then
+    echo "::error::$CDS_DIR/application.jsa not found, run mvn -Pstartup package first"
+    exit 1
+fi
+export JWT_SECRET_KEY=${JWT_SECRET_KEY:-DLRopgThn+PQaVxAzUNdudmDlaNcw12g1VcJCVqi1oA98Z069xRwWa25S82KAQXa}
+
+# Starts the app with the given JVM options and prints the time Spring reports for startup
+run_once() {
+    local log
+    log=$(mktemp)
+    (cd "$CDS_DIR" && exec java "$@" -jar "$JAR" --server.port="$PORT") > "$log" 2>&1 &
+    local pid=$!
+    local seconds=""
+    for _ in $(seq 1 600); do
+        seconds=$(sed -n 's/.*Started BookNetworkApiApplication in \([0-9.]*\) seconds.*/\1/p' "$log")
+        if [ -n "$seconds" ] || ! kill -0 "$pid" 2>/dev/null; then
+            break
+        fi
+        sleep 0.2
+    done
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+    if [ -z "$seconds" ]; then
+        echo "::error::application did not start, see $log" >&2
+        return 1
+    fi
+    rm -f "$log"
+    echo "$seconds"
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { if (NR % 2) print v[(NR + 1) / 2]; else printf "%.3f\n", (v[NR / 2] + v[NR / 2 + 1]) / 2 }'
+}
+
+benchmark() {
+    local mode=$1
+    shift
+    local results=()
+    for run in $(seq 1 "$RUNS"); do
+        local seconds
+        seconds=$(run_once "$@")
+        echo "startup mode=$mode run=$run seconds=$seconds"
+        results+=("$seconds")
+    done
+    local result
+    result=$(printf '%s\n' "${results[@]}" | median)
+    echo "::notice title=startup $mode::median ${result}s over $RUNS runs"
+    eval "MEDIAN_${mode//-/_}=$result"
+}
+
+benchmark dev -Dspring.profiles.active=dev
+benchmark prod -Dspring.profiles.active=prod
+benchmark prod-cds -Dspring.profiles.active=prod -Dspring.aot.enabled=true -XX:SharedArchiveFile=application.jsa -Xlog:cds=error
+
+echo
+echo "| mode | median startup (s) |"
+echo "|------|--------------------|"
+echo "| dev | $MEDIAN_dev |"
+echo "| prod | $MEDIAN_prod |"
+echo "| prod-cds | $MEDIAN_prod_cds |"
+
+if [ -n "$MAX_STARTUP_SECONDS" ] && awk -v m="$MEDIAN_prod_cds" -v max="$MAX_STARTUP_SECONDS" 'BEGIN { exit !(m > max) }'; then
+    echo "::error::prod-cds startup ${MEDIAN_prod_cds}s is above the ${MAX_STARTUP_SECONDS}s budget"
+    exit 1
+fi
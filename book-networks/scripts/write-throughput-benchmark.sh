@@ -0,0 +1,113 @@
+#!/usr/bin/env bash
+# Write throughput of the borrow and feedback endpoints under the prod profile, in two modes:
+#   baseline  the datasource and Hibernate settings of application-prod.yml put back to the driver,
+#             Hikari and Hibernate defaults (pool of 10, prepareThreshold 5, no JDBC batching)
+#   tuned     application-prod.yml as shipped
+# The id optimizer is pooled-lo in both: switching a live sequence back to pooled would hand out
+# ids already used. Load comes from book-loadtest with only the borrow and feedback scenarios on.
+# Needs the database from docker-compose with generated data:
+#   cd book-networks && ./mvnw package -DskipTests
+#   cd book-loadtest && ./mvnw package -DskipTests && java -jar target/book-loadtest-0.0.1-SNAPSHOT.jar generate
+# Loans the first mode leaves open are refused in the second, so compare req/s (every request
+# writes or is refused after its reads) and regenerate the data between full runs.
+set -euo pipefail
+
+USERS=${USERS:-100}
+# Generated users the scenarios act as; a small pool logs in once per user instead of on most iterations
+ACTORS=${ACTORS:-500}
+DURATION=${DURATION:-2m}
+PORT=${PORT:-8097}
+ROOT="$(cd "$(dirname "$0")/../.." && pwd)"
+APP_JAR="$ROOT/book-networks/target/book-network-0.0.1-SNAPSHOT.jar"
+LOADTEST_JAR="$ROOT/book-loadtest/target/book-loadtest-0.0.1-SNAPSHOT.jar"
+REPORT_DIR="$ROOT/book-networks/target/write-benchmark"
+ENDPOINTS=("POST /books/borrow/{id}" "PATCH /books/borrow/return/{id}" "POST /feedbacks")
+
+for jar in "$APP_JAR" "$LOADTEST_JAR"; do
+    if [ ! -f "$jar" ]; then
+        echo "::error::$jar not found, package book-networks and book-loadtest first"
+        exit 1
+    fi
+done
+export JWT_SECRET_KEY=${JWT_SECRET_KEY:-DLRopgThn+PQaVxAzUNdudmDlaNcw12g1VcJCVqi1oA98Z069xRwWa25S82KAQXa}
+
+BASELINE=(
+    --spring.datasource.hikari.maximum-pool-size=10
+    --spring.datasource.hikari.minimum-idle=10
+    --spring.datasource.hikari.connection-timeout=30000
+    --spring.datasource.hikari.data-source-properties.prepareThreshold=5
+    --spring.datasource.hikari.data-source-properties.preparedStatementCacheQueries=256
+    --spring.datasource.hikari.data-source-properties.preparedStatementCacheSizeMiB=5
+    --spring.datasource.hikari.data-source-properties.reWriteBatchedInserts=false
+    --spring.jpa.properties.hibernate.jdbc.batch_size=0
+    --spring.jpa.properties.hibernate.order_inserts=false
+    --spring.jpa.properties.hibernate.order_updates=false
+    --spring.jpa.properties.hibernate.query.in_clause_parameter_padding=false
+)
+
+# Starts the API with the given arguments, runs the write scenarios against it and keeps the report
+run_mode() {
+    local mode=$1
+    shift
+    local log
+    log=$(mktemp)
+    java -jar "$APP_JAR" --spring.profiles.active=prod --server.port="$PORT" \
+        --application.rate-limit.enabled=false "$@" > "$log" 2>&1 &
+    local pid=$!
+    for _ in $(seq 1 300); do
+        if grep -q "Started BookNetworkApiApplication" "$log" || ! kill -0 "$pid" 2>/dev/null; then
+            break
+        fi
+        sleep 0.2
+    done
+    if ! grep -q "Started BookNetworkApiApplication" "$log"; then
+        kill "$pid" 2>/dev/null || true
+        echo "::error::application did not start in mode $mode, see $log"
+        exit 1
+    fi
+    rm -rf "${REPORT_DIR:?}/$mode"
+    (cd "$ROOT/book-loadtest" && java -jar "$LOADTEST_JAR" run \
+        --loadtest.run.base-url="http://localhost:$PORT/api/v1" \
+        --loadtest.run.users="$USERS" \
+        --loadtest.run.actors="$ACTORS" \
+        --loadtest.run.duration="$DURATION" \
+        --loadtest.run.weights.browse=0 \
+        --loadtest.run.weights.borrow=3 \
+        --loadtest.run.weights.feedback=1 \
+        --loadtest.run.weights.cover=0 \
+        --loadtest.run.weights.register=0 \
+        --loadtest.run.report-dir="$REPORT_DIR/$mode") | grep -E "req/s|Report written" || true
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+    rm -f "$log"
+}
+
+# Prints "<requests per second> <successful writes per second> <p99 ms>" of one endpoint from the report of a mode
+endpoint_result() {
+    local mode=$1 endpoint=$2 seconds=$3
+    awk -F, -v endpoint="\"$endpoint\"" -v seconds="$seconds" \
+        '$1 == endpoint { printf "%.1f %.1f %s\n", $2 / seconds, $3 / seconds, $9 }' "$REPORT_DIR/$mode"/report-*.csv
+}
+
+duration_seconds() {
+    local value=${DURATION%[smh]}
+    case $DURATION in
+        *m) echo $((value * 60)) ;;
+        *h) echo $((value * 3600)) ;;
+        *) echo "$value" ;;
+    esac
+}
+
+run_mode baseline "${BASELINE[@]}"
+run_mode tuned
+
+SECONDS_RUN=$(duration_seconds)
+echo
+echo "| endpoint | baseline req/s | tuned req/s | baseline ok/s | tuned ok/s | baseline p99 ms | tuned p99 ms |"
+echo "|----------|----------------|-------------|---------------|------------|-----------------|--------------|"
+for endpoint in "${ENDPOINTS[@]}"; do
+    read -r baseline_rate baseline_ok baseline_p99 <<< "$(endpoint_result baseline "$endpoint" "$SECONDS_RUN")"
+    read -r tuned_rate tuned_ok tuned_p99 <<< "$(endpoint_result tuned "$endpoint" "$SECONDS_RUN")"
+    echo "| $endpoint | ${baseline_rate:-0} | ${tuned_rate:-0} | ${baseline_ok:-0} | ${tuned_ok:-0} | ${baseline_p99:--} | ${tuned_p99:--} |"
+    echo "::notice title=writes $endpoint::${baseline_rate:-0} req/s -> ${tuned_rate:-0} req/s"
+done
@@ -0,0 +1,106 @@
+package com.teguh.book.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.teguh.book.book.BookResponse;
+import com.teguh.book.book.BorrowedBookResponse;
+import com.teguh.book.feedback.FeedbackResponse;
+
+/*
+ * Serializes one page of each DTO type into a discarding stream, the same way
+ * MappingJackson2HttpMessageConverter writes to the servlet output stream.
+ * Run with the gc profiler and compare gc.alloc.rate.norm (bytes per page)
+ * between the plain and the Blackbird mapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageResponseSerializationBenchmark {
+
+    @Param({ "plain", "blackbird" })
+    private String mapper;
+
+    private ObjectMapper objectMapper;
+    private PageResponse<BookResponse> bookPage;
+    private PageResponse<BorrowedBookResponse> borrowedPage;
+    private PageResponse<FeedbackResponse> feedbackPage;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        if ("blackbird".equals(mapper)) {
+            objectMapper.registerModule(new BlackbirdModule());
+        }
+
+        bookPage = page(IntStream.range(0, 10)
+                .mapToObj(i -> BookResponse.builder()
+                        .id(i)
+                        .title("Title " + i)
+                        .authorName("Author " + i)
+                        .isbn("978-0-00-00000" + i)
+                        .synopsis("A synopsis long enough to look like a real one, number " + i)
+                        .owner("Owner " + i)
+                        .coverUrl(BookResponse.coverUrl(i, "cover-" + i + ".jpg"))
+                        .rate(4.5)
+                        .shareable(true)
+                        .build())
+                .toList());
+        borrowedPage = page(IntStream.range(0, 10)
+                .mapToObj(i -> BorrowedBookResponse.builder()
+                        .id(i)
+                        .title("Title " + i)
+                        .authorName("Author " + i)
+                        .isbn("978-0-00-00000" + i)
+                        .rate(3.5)
+                        .returned(i % 2 == 0)
+                        .build())
+                .toList());
+        feedbackPage = page(IntStream.range(0, 10)
+                .mapToObj(i -> FeedbackResponse.builder()
+                        .rating(4.0)
+                        .command("Comment number " + i)
+                        .ownFeedback(i == 0)
+                        .build())
+                .toList());
+    }
+
+    @Benchmark
+    public void bookPage() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), bookPage);
+    }
+
+    @Benchmark
+    public void borrowedBookPage() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), borrowedPage);
+    }
+
+    @Benchmark
+    public void feedbackPage() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), feedbackPage);
+    }
+
+    private static <T> PageResponse<T> page(List<T> content) {
+        return new PageResponse<>(content, 0, content.size(), 100, 10, true, false);
+    }
+}
@@ -4,9 +4,12 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+import com.teguh.book.config.NativeRuntimeHints;
 import com.teguh.book.role.Role;
 import com.teguh.book.role.RoleRepository;
 
@@ -14,8 +17,10 @@ import com.teguh.book.role.RoleRepository;
  * auditorAwareRef = "auditorAware" is from config/BeanConfig.auditorAware()
  */
 @EnableAsync
+@EnableScheduling
 @EnableJpaAuditing(auditorAwareRef = "auditorAware")
 @SpringBootApplication
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class BookNetworkApiApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,102 @@
+package com.teguh.book.auth;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Predicate;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.teguh.book.email.EmailService;
+import com.teguh.book.email.EmailTemplateName;
+import com.teguh.book.user.TokenRepository;
+import com.teguh.book.user.User;
+import com.teguh.book.user.UserRepository;
+
+import jakarta.mail.MessagingException;
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class ActivationCodeService {
+    static final Duration ACTIVATION_CODE_VALIDITY = Duration.ofMinutes(15);
+    private static final String LIVE_CODE_INDEX = "uk_token_live_code";
+    private static final int CODE_ATTEMPTS = 5;
+
+    private final TokenRepository tokenRepository;
+    private final UserRepository userRepository;
+    // Resolved on first use, so the mail and template stack can stay lazy at startup
+    private final ObjectProvider<EmailService> emailService;
+
+    @Value("${application.mailing.frontend.activation-url}")
+    private String activationUrl;
+
+    public void sendActivationCode(User user) throws MessagingException {
+        var newToken = generateAndSaveActivationToken(user);
+        sendActivationEmail(user.getEmail(), user.fullName(), newToken);
+    }
+
+    // For a code whose token is already saved
+    public void sendActivationEmail(String email, String fullName, String activationCode) throws MessagingException {
+        emailService.getObject().sendEmail(
+                email,
+                fullName,
+                EmailTemplateName.ACTIVATE_ACCOUNT,
+                activationUrl,
+                activationCode,
+                "Account activation");
+    }
+
+    /*
+     * Draws codes until save accepts one. A code is only 6 digits, so it can
+     * be held by another account's unvalidated token, which the live-code
+     * index refuses: activating a code must enable exactly one account.
+     */
+    public String saveWithFreshCode(Predicate<String> save) {
+        for (int attempt = 0; attempt < CODE_ATTEMPTS; attempt++) {
+            String code = generateActivationCode(6);
+            if (save.test(code)) {
+                return code;
+            }
+        }
+        throw new IllegalStateException("No free activation code after " + CODE_ATTEMPTS + " attempts");
+    }
+
+    // For statements that insert a token without ON CONFLICT
+    public static boolean isLiveCodeTaken(DataIntegrityViolationException e) {
+        return e.getCause() instanceof ConstraintViolationException violation
+                && LIVE_CODE_INDEX.equalsIgnoreCase(violation.getConstraintName());
+    }
+
+    @Transactional
+    public void resendActivationCode(Integer userId) throws MessagingException {
+        var user = userRepository.findById(userId)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        sendActivationCode(user);
+    }
+
+    private String generateAndSaveActivationToken(User user) {
+        LocalDateTime now = LocalDateTime.now();
+        return saveWithFreshCode(code -> tokenRepository.insertIfCodeIsFree(
+                code, now, now.plus(ACTIVATION_CODE_VALIDITY), user.getId()) == 1);
+    }
+
+    private String generateActivationCode(int length) {
+        String characters = "0123456789";
+        StringBuilder codeBuilder = new StringBuilder();
+        SecureRandom secureRandom = new SecureRandom();
+
+        for (int i = 0; i < length; i++) {
+            int randomIndex = secureRandom.nextInt(characters.length());
+            codeBuilder.append(characters.charAt(randomIndex));
+        }
+
+        return codeBuilder.toString();
+    }
+}
@@ -0,0 +1,42 @@
+package com.teguh.book.auth;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.teguh.book.event.ActivationTokenExpired;
+import com.teguh.book.event.DomainEvent;
+import com.teguh.book.event.DomainEventConsumer;
+
+import jakarta.mail.MessagingException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Issues and mails a fresh activation code off the request thread when a user
+ * tries an expired one.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ActivationResendConsumer implements DomainEventConsumer {
+    private final ActivationCodeService activationCodeService;
+
+    @Override
+    public String name() {
+        return "activation-resend";
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof ActivationTokenExpired expired) {
+                try {
+                    activationCodeService.resendActivationCode(expired.userId());
+                } catch (MessagingException e) {
+                    log.error("Could not resend the activation code to user {}", expired.userId(), e);
+                }
+            }
+        }
+    }
+}
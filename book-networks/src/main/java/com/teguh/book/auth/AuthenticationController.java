@@ -20,6 +20,7 @@ import lombok.RequiredArgsConstructor;
 @Tag(name = "Authentication")
 public class AuthenticationController {
     private final AuthenticationService authenticationService;
+    private final RefreshTokenService refreshTokenService;
 
     @PostMapping("/register")
     @ResponseStatus(HttpStatus.ACCEPTED)
@@ -34,8 +35,21 @@ public class AuthenticationController {
         return ResponseEntity.ok(authenticationService.authenticate(request));
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthenticationResponse> refresh(@RequestBody @Valid RefreshTokenRequest request) {
+        return ResponseEntity.ok(refreshTokenService.refresh(request.getRefreshToken()));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(
+            @RequestBody @Valid RefreshTokenRequest request,
+            @RequestParam(name = "all-sessions", defaultValue = "false") boolean allSessions) {
+        refreshTokenService.logout(request.getRefreshToken(), allSessions);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/activate-account")
-    public void confirm(@RequestParam String token) throws MessagingException {
+    public void confirm(@RequestParam String token) {
         authenticationService.activateAccount(token);
     }
 }
@@ -9,4 +9,5 @@ import lombok.Setter;
 @Builder
 public class AuthenticationResponse {
     private String token;
+    private String refreshToken;
 }
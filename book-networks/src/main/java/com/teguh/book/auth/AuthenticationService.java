@@ -1,21 +1,20 @@
 package com.teguh.book.auth;
 
-import java.security.SecureRandom;
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Optional;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import com.teguh.book.email.EmailService;
-import com.teguh.book.email.EmailTemplateName;
+import com.teguh.book.cache.NearCache;
+import com.teguh.book.event.ActivationTokenExpired;
+import com.teguh.book.event.DomainEventBus;
+import com.teguh.book.role.Role;
 import com.teguh.book.role.RoleRepository;
-import com.teguh.book.security.JwtService;
+import com.teguh.book.security.AuthenticatedUser;
 import com.teguh.book.user.Token;
 import com.teguh.book.user.TokenRepository;
 import com.teguh.book.user.User;
@@ -32,101 +31,77 @@ public class AuthenticationService {
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
     private final TokenRepository tokenRepository;
-    private final EmailService emailService;
+    private final ActivationCodeService activationCodeService;
+    private final DomainEventBus domainEventBus;
     private final AuthenticationManager authenticationManager;
-    private final JwtService jwtService;
-
-    @Value("${application.mailing.frontend.activation-url}")
-    private String activationUrl;
-
+    private final RefreshTokenService refreshTokenService;
+    private final NearCache<AuthenticatedUser> userCache;
+    private final NearCache<Role> roleCache;
+
+    /*
+     * One statement creates the user, its role link and its activation token;
+     * a taken email comes back empty from the unique constraint instead of
+     * being looked up first.
+     */
     public void register(RegistrationRequest request) throws MessagingException {
-        if (isExistEmail(request.getEmail())) {
-            throw new EntityExistsException("Email already Exist");
-        }
-
-        var userRole = roleRepository.findByName("USER")
-                .orElseThrow(() -> new IllegalStateException("ROLE USER was not initialized"));
-
-        var user = User.builder()
-                .firstname(request.getFirstname())
-                .lastname(request.getLastname())
-                .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
-                .accountLocked(false)
-                .enabled(false)
-                .roles(List.of(userRole))
-                .build();
-        userRepository.save(user);
-        sendValidationEmail(user);
-    }
-
-    private void sendValidationEmail(User user) throws MessagingException {
-        var newToken = generateAndSaveActivationToken(user);
-        emailService.sendEmail(
-                user.getEmail(),
-                user.fullName(),
-                EmailTemplateName.ACTIVATE_ACCOUNT,
-                activationUrl,
-                newToken,
-                "Account activation");
-    }
-
-    private String generateAndSaveActivationToken(User user) {
-        String generatedToken = generateActivationCode(6);
-        var token = Token.builder().token(generatedToken).createdAt(LocalDateTime.now())
-                .expiresAt(LocalDateTime.now().plusMinutes(15))
-                .user(user)
-                .build();
-
-        tokenRepository.save(token);
-        return generatedToken;
-    }
-
-    private String generateActivationCode(int length) {
-        String characters = "0123456789";
-        StringBuilder codeBuilder = new StringBuilder();
-        SecureRandom secureRandom = new SecureRandom();
-
-        for (int i = 0; i < length; i++) {
-            int randomIndex = secureRandom.nextInt(characters.length());
-            codeBuilder.append(characters.charAt(randomIndex));
+        var userRole = roleCache.get("USER", () -> roleRepository.findByName("USER").orElse(null));
+        if (userRole == null) {
+            throw new IllegalStateException("ROLE USER was not initialized");
         }
 
-        return codeBuilder.toString();
+        String password = passwordEncoder.encode(request.getPassword());
+        LocalDateTime now = LocalDateTime.now();
+        String activationCode = activationCodeService.saveWithFreshCode(code -> {
+            try {
+                userRepository.registerWithActivationToken(
+                        request.getFirstname(),
+                        request.getLastname(),
+                        request.getEmail(),
+                        password,
+                        userRole.getId(),
+                        code,
+                        now,
+                        now.plus(ActivationCodeService.ACTIVATION_CODE_VALIDITY))
+                        .orElseThrow(() -> new EntityExistsException("Email already Exist"));
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                // The statement rolled back whole, the user was not created either
+                if (ActivationCodeService.isLiveCodeTaken(e)) {
+                    return false;
+                }
+                throw e;
+            }
+        });
+        activationCodeService.sendActivationEmail(
+                request.getEmail(), request.getFirstname() + " " + request.getLastname(), activationCode);
     }
 
     public AuthenticationResponse authenticate(AuthenticationRequest request) {
         var auth = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
-        var claims = new HashMap<String, Object>();
         // Because we implement principal, k
-        var user = ((User) auth.getPrincipal());
-        claims.put("fullName", user.fullName());
-        var jwtToken = jwtService.generateToken(claims, (User) auth.getPrincipal());
-
-        return AuthenticationResponse.builder().token(jwtToken).build();
+        return refreshTokenService.startSession((User) auth.getPrincipal());
     }
 
-    public void activateAccount(String token) throws MessagingException {
-        Token savedToken = tokenRepository.findByToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid token"));
-        if (LocalDateTime.now().isAfter(savedToken.getExpiresAt())) {
-            sendValidationEmail(savedToken.getUser());
-            throw new RuntimeException(
-                    "Activation token has experied. A new token has been send to " + savedToken.getUser().getEmail());
+    public void activateAccount(String token) {
+        Optional<String> activatedEmail = tokenRepository.activateUserByToken(token, LocalDateTime.now());
+        if (activatedEmail.isPresent()) {
+            // A token of the user may have cached the principal from before activation
+            userCache.invalidate(activatedEmail.get());
+            return;
         }
 
-        var user = userRepository.findById(
-                savedToken.getUser().getId()).orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        user.setEnabled(true);
-        userRepository.save(user);
-        savedToken.setValidatedAt(LocalDateTime.now());
-        tokenRepository.save(savedToken);
-    }
-
-    private boolean isExistEmail(String email) {
-        return userRepository.findByEmail(email).isPresent();
+        // Nothing was activated: find out why, this is the rare path
+        Token savedToken = tokenRepository.findByTokenAndValidatedAtIsNull(token).orElse(null);
+        if (savedToken == null) {
+            if (tokenRepository.existsByTokenAndValidatedAtIsNotNull(token)) {
+                return;
+            }
+            throw new RuntimeException("Invalid token");
+        }
+        domainEventBus.publish(new ActivationTokenExpired(savedToken.getUser().getId()));
+        throw new RuntimeException(
+                "Activation token has experied. A new token has been send to " + savedToken.getUser().getEmail());
     }
 
 }
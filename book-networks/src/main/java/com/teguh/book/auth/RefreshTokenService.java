@@ -0,0 +1,146 @@
+package com.teguh.book.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.teguh.book.security.JwtService;
+import com.teguh.book.security.TokenRevocationRegistry;
+import com.teguh.book.user.RefreshToken;
+import com.teguh.book.user.RefreshTokenRepository;
+import com.teguh.book.user.User;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * Login sessions. A session is a family of refresh tokens, each used once:
+ * refreshing revokes the presented token and hands out a new one together
+ * with a new short-lived access token. A revoked token presented again means
+ * it leaked, so the whole session is revoked. Revoking a session also refuses
+ * its access tokens that have not expired yet, through the revocation registry.
+ */
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final JwtService jwtService;
+
+    @Value("${application.security.jwt.expiration}")
+    private long accessTokenExpiration;
+    @Value("${application.security.jwt.refresh-expiration}")
+    private long refreshTokenExpiration;
+
+    @Transactional
+    public AuthenticationResponse startSession(User user) {
+        return issue(user, UUID.randomUUID());
+    }
+
+    // Refused refreshes still commit the revocations they made
+    @Transactional(noRollbackFor = AuthenticationException.class)
+    public AuthenticationResponse refresh(String refreshToken) {
+        RefreshToken token = findToken(refreshToken);
+        if (token.getRevokedAt() != null) {
+            revokeSession(token.getFamilyId());
+            throw new BadCredentialsException("Refresh token was already used");
+        }
+        if (token.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new BadCredentialsException("Refresh token has expired");
+        }
+
+        User user = token.getUser();
+        if (!user.isAccountNonLocked()) {
+            revokeSession(token.getFamilyId());
+            throw new LockedException("User account is locked");
+        }
+        if (!user.isEnabled()) {
+            revokeSession(token.getFamilyId());
+            throw new DisabledException("User account is disabled");
+        }
+
+        token.setRevokedAt(LocalDateTime.now());
+        return issue(user, token.getFamilyId());
+    }
+
+    @Transactional
+    public void logout(String refreshToken, boolean allSessions) {
+        RefreshToken token = findToken(refreshToken);
+        revokeSession(token.getFamilyId());
+        if (allSessions) {
+            revokeAllSessions(token.getUser().getId());
+        }
+    }
+
+    /*
+     * Ends every session of the user, for logout everywhere and for whatever
+     * locks the account.
+     */
+    @Transactional
+    public void revokeAllSessions(Integer userId) {
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.revokeAllOfUser(userId, now);
+        // Only sessions refreshed within an access token lifetime can still have a live access token
+        refreshTokenRepository
+                .findFamiliesIssuedSince(userId, now.minusNanos(accessTokenExpiration * 1_000_000))
+                .forEach(revocationRegistry::revoke);
+    }
+
+    private void revokeSession(UUID familyId) {
+        refreshTokenRepository.revokeFamily(familyId, LocalDateTime.now());
+        revocationRegistry.revoke(familyId);
+    }
+
+    private RefreshToken findToken(String refreshToken) {
+        return refreshTokenRepository.findByTokenHashForUpdate(hash(refreshToken))
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+    }
+
+    private AuthenticationResponse issue(User user, UUID familyId) {
+        var claims = new HashMap<String, Object>();
+        claims.put(JwtService.FULL_NAME_CLAIM, user.fullName());
+        // Requests rebuild their principal from the claims instead of loading the user
+        claims.put(JwtService.USER_ID_CLAIM, user.getId());
+        claims.put(JwtService.SESSION_ID_CLAIM, familyId.toString());
+        String accessToken = jwtService.generateToken(claims, user);
+
+        byte[] secret = new byte[32];
+        RANDOM.nextBytes(secret);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(hash(refreshToken))
+                .familyId(familyId)
+                .user(user)
+                .createdAt(now)
+                .expiresAt(now.plusNanos(refreshTokenExpiration * 1_000_000))
+                .build());
+
+        return AuthenticationResponse.builder().token(accessToken).refreshToken(refreshToken).build();
+    }
+
+    // Only the digest is stored: a copy of the table cannot be replayed
+    private static String hash(String refreshToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(refreshToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
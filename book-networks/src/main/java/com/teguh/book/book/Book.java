@@ -7,10 +7,15 @@ import com.teguh.book.feedback.Feedback;
 import com.teguh.book.history.BookTransactionHistory;
 import com.teguh.book.user.User;
 
+import org.hibernate.annotations.ColumnDefault;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -24,6 +29,9 @@ import lombok.experimental.SuperBuilder;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_book_feed_trending", columnList = "archived, shareable, trending_score DESC, id DESC"),
+        @Index(name = "idx_book_owner", columnList = "owner_id") })
 public class Book extends BaseEntity {
     private String title;
     private String authorName;
@@ -33,6 +41,11 @@ public class Book extends BaseEntity {
     private boolean archived;
     private boolean shareable;
 
+    // Only ever incremented in SQL by TrendingScoreAccumulator
+    @ColumnDefault("0")
+    @Column(updatable = false)
+    private double trendingScore;
+
     @ManyToOne
     @JoinColumn(name = "owner_id")
     private User owner;
@@ -1,5 +1,12 @@
 package com.teguh.book.book;
 
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,12 +18,17 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.teguh.book.common.PageResponse;
+import com.teguh.book.sql.StatementBudget;
 
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -25,8 +37,17 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 @Tag(name = "Book")
 public class BookController {
+    // Responses depend on the connected user, so only the browser may keep them and it must revalidate
+    private static final CacheControl REVALIDATE_PRIVATE = CacheControl.noCache().cachePrivate();
+    // Request attributes of Tomcat's sendfile support, the same ones its DefaultServlet sets
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final BookService bookService;
 
+    @StatementBudget(4)
     @PostMapping
     public ResponseEntity<Integer> saveBook(
             @Valid @RequestBody BookRequest request,
@@ -35,45 +56,69 @@ public class BookController {
         return ResponseEntity.ok(bookService.save(request, connectedUser));
     }
 
+    @StatementBudget(5)
     @GetMapping("{book-id}")
-    public ResponseEntity<BookResponse> findBookById(@PathVariable("book-id") Integer bookId) {
-        return ResponseEntity.ok(bookService.findById(bookId));
+    public ResponseEntity<BookResponse> findBookById(
+            @PathVariable("book-id") Integer bookId,
+            WebRequest webRequest) {
+        BookDetails book = bookService.findById(bookId);
+        if (webRequest.checkNotModified(book.eTag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(book.eTag())
+                .cacheControl(REVALIDATE_PRIVATE)
+                .body(book.response());
     }
 
+    @StatementBudget(10)
     @GetMapping
     public ResponseEntity<PageResponse<BookResponse>> findAll(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "sort", defaultValue = "NEWEST", required = false) BookFeedSort sort,
             Authentication connectedUser) {
 
-        return ResponseEntity.ok(bookService.findAllBooks(page, size, connectedUser));
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE_PRIVATE)
+                .body(bookService.findAllBooks(page, size, sort, connectedUser));
     }
 
     // Get Book by Owner
+    @StatementBudget(6)
     @GetMapping("/owner")
     public ResponseEntity<PageResponse<BookResponse>> findAllBooksByOwner(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
             Authentication connectedUser) {
-        return ResponseEntity.ok(bookService.findAllBookByOwner(page, size, connectedUser));
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE_PRIVATE)
+                .body(bookService.findAllBookByOwner(page, size, connectedUser));
     }
 
+    @StatementBudget(6)
     @GetMapping("/borowed")
     public ResponseEntity<PageResponse<BorrowedBookResponse>> findAllBorrowedBooks(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
             Authentication connectedUser) {
-        return ResponseEntity.ok(bookService.findAllBorrowedBooks(page, size, connectedUser));
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE_PRIVATE)
+                .body(bookService.findAllBorrowedBooks(page, size, connectedUser));
     }
 
+    @StatementBudget(6)
     @GetMapping("/returned")
     public ResponseEntity<PageResponse<BorrowedBookResponse>> findAllReturnedBooks(
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
             Authentication connectedUser) {
-        return ResponseEntity.ok(bookService.findAllReturnedBooks(page, size, connectedUser));
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE_PRIVATE)
+                .body(bookService.findAllReturnedBooks(page, size, connectedUser));
     }
 
+    @StatementBudget(4)
     @PatchMapping("/shareable/{book-id}")
     public ResponseEntity<Integer> updateShareableStatus(
             @PathVariable("book-id") Integer bookId,
@@ -81,6 +126,7 @@ public class BookController {
         return ResponseEntity.ok(bookService.updateShareableStatus(bookId, connectedUser));
     }
 
+    @StatementBudget(4)
     @PatchMapping("/archived/{book-id}")
     public ResponseEntity<Integer> updateArchivedStatus(
             @PathVariable("book-id") Integer bookId,
@@ -88,6 +134,7 @@ public class BookController {
         return ResponseEntity.ok(bookService.updateArchivedStatus(bookId, connectedUser));
     }
 
+    @StatementBudget(6)
     @PostMapping("/borrow/{book-id}")
     public ResponseEntity<Integer> borrowBook(
             @PathVariable("book-id") Integer bookId,
@@ -95,6 +142,7 @@ public class BookController {
         return ResponseEntity.ok(bookService.borrowBook(bookId, connectedUser));
     }
 
+    @StatementBudget(6)
     @PatchMapping("/borrow/return/{book-id}")
     public ResponseEntity<Integer> returnBorrowedBook(
             @PathVariable("book-id") Integer bookId,
@@ -102,6 +150,7 @@ public class BookController {
         return ResponseEntity.ok(bookService.returnBorrowedBook(bookId, connectedUser));
     }
 
+    @StatementBudget(6)
     @PatchMapping("/borrow/return/approve/{book-id}")
     public ResponseEntity<Integer> aproveReturnBorrowedBook(
             @PathVariable("book-id") Integer bookId,
@@ -109,6 +158,7 @@ public class BookController {
         return ResponseEntity.ok(bookService.approveReturnBorrowedBook(bookId, connectedUser));
     }
 
+    @StatementBudget(4)
     @PostMapping(value = "/cover/{book-id}", consumes = "multipart/form-data")
     public ResponseEntity<?> uploadBookCoverPicture(
             @PathVariable("book-id") Integer bookId,
@@ -118,4 +168,36 @@ public class BookController {
         return ResponseEntity.accepted().build();
     }
 
+    /*
+     * The raw cover image. Tomcat sends the file with sendfile when the
+     * connector supports it, so the bytes never enter the JVM; otherwise the
+     * file channel is transferred to the response. The shallow ETag filter
+     * skips this path (BeansConfig): its wrapper would buffer it.
+     */
+    @StatementBudget(2)
+    @GetMapping("/cover/{book-id}")
+    public void findBookCover(
+            @PathVariable("book-id") Integer bookId,
+            ServletWebRequest webRequest,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        BookCover cover = bookService.findCover(bookId);
+        if (webRequest.checkNotModified(cover.eTag())) {
+            return;
+        }
+        response.setContentType(cover.mediaType().toString());
+        response.setContentLengthLong(cover.length());
+        response.setHeader(HttpHeaders.ETAG, cover.eTag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE_PRIVATE.getHeaderValue());
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, cover.file().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, cover.length());
+            return;
+        }
+        try (FileChannel file = FileChannel.open(cover.file(), StandardOpenOption.READ)) {
+            file.transferTo(0, cover.length(), Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
 }
@@ -0,0 +1,9 @@
+package com.teguh.book.book;
+
+import java.nio.file.Path;
+
+import org.springframework.http.MediaType;
+
+// The cover file of a book, served from disk by the connector
+public record BookCover(String eTag, MediaType mediaType, Path file, long length) {
+}
@@ -0,0 +1,8 @@
+package com.teguh.book.book;
+
+/*
+ * A book's response together with the ETag of the version it was built from,
+ * cached as one so a conditional read is answered without the database too.
+ */
+public record BookDetails(BookResponse response, String eTag) {
+}
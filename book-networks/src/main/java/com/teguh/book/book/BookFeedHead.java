@@ -0,0 +1,23 @@
+package com.teguh.book.book;
+
+import java.util.List;
+
+/*
+ * The first page of the shareable-books feed of every owner, shared by all
+ * readers. A reader's own books are left out of their feed, so their first
+ * page is this one minus their books; the owner of each row is kept for that.
+ */
+public record BookFeedHead(List<Row> rows, long totalElements) {
+
+    public record Row(Integer ownerId, BookResponse book) {
+    }
+
+    // Every shareable book is in the head, so whatever is derived from it is exact
+    boolean isComplete() {
+        return rows.size() >= totalElements;
+    }
+
+    long countOwnedBy(Integer userId) {
+        return rows.stream().filter(row -> row.ownerId().equals(userId)).count();
+    }
+}
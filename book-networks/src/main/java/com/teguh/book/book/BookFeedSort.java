@@ -0,0 +1,19 @@
+package com.teguh.book.book;
+
+import org.springframework.data.domain.Sort;
+
+public enum BookFeedSort {
+    // The id breaks created date ties, so offset pages neither repeat nor skip books (and match the catalog)
+    NEWEST(Sort.by("createdDate").descending().and(Sort.by("id").descending())),
+    TRENDING(Sort.by("trendingScore").descending().and(Sort.by("id").descending()));
+
+    private final Sort sort;
+
+    BookFeedSort(Sort sort) {
+        this.sort = sort;
+    }
+
+    public Sort toSort() {
+        return sort;
+    }
+}
@@ -1,12 +1,25 @@
 package com.teguh.book.book;
 
+import java.nio.ByteBuffer;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.teguh.book.file.FileUtils;
+import com.teguh.book.file.CoverCache;
 import com.teguh.book.history.BookTransactionHistory;
 
 @Service
 public class BookMapper {
+    private final CoverCache coverCache;
+    private final boolean inlineCovers;
+
+    public BookMapper(
+            CoverCache coverCache,
+            @Value("${application.file.inline-covers:true}") boolean inlineCovers) {
+        this.coverCache = coverCache;
+        this.inlineCovers = inlineCovers;
+    }
+
     public Book toBook(BookRequest request) {
         return Book
                 .builder()
@@ -20,6 +33,7 @@ public class BookMapper {
                 .build();
     }
 
+    @SuppressWarnings("deprecation")
     public BookResponse toBookResponse(Book book) {
         return BookResponse
                 .builder()
@@ -32,10 +46,25 @@ public class BookMapper {
                 .archived(book.isArchived())
                 .shareable(book.isShareable())
                 .owner(book.getOwner().fullName())
-                .cover(FileUtils.readFilesFromLocation(book.getCoverBook()))
+                .cover(inlineCover(book.getCoverBook()))
+                .coverUrl(BookResponse.coverUrl(book.getId(), book.getCoverBook()))
                 .build();
     }
 
+    // Copied out of the mapped file: no disk read per response, one array per cover
+    private byte[] inlineCover(String coverPath) {
+        if (!inlineCovers) {
+            return null;
+        }
+        ByteBuffer cover = coverCache.find(coverPath);
+        if (cover == null) {
+            return null;
+        }
+        byte[] bytes = new byte[cover.remaining()];
+        cover.get(bytes);
+        return bytes;
+    }
+
     public BorrowedBookResponse toBorrowedBookResponse(BookTransactionHistory history) {
         return BorrowedBookResponse
                 .builder()
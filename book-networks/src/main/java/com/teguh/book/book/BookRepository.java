@@ -1,10 +1,21 @@
 package com.teguh.book.book;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import com.teguh.book.export.BookExportRow;
+
+import jakarta.persistence.QueryHint;
 
 public interface BookRepository extends JpaRepository<Book, Integer>, JpaSpecificationExecutor<Book> {
 
@@ -16,4 +27,57 @@ public interface BookRepository extends JpaRepository<Book, Integer>, JpaSpecifi
             """)
     Page<Book> findAllDisplayableBooks(Pageable pageable, Integer userId);
 
+    @Query("""
+            SELECT book FROM Book book
+            WHERE book.archived = false
+            AND book.shareable = true
+            """)
+    Page<Book> findAllShareableBooks(Pageable pageable);
+
+    @Query("""
+            SELECT COUNT(book) FROM Book book
+            WHERE book.archived = false
+            AND book.shareable = true
+            AND book.owner.id = :ownerId
+            """)
+    long countShareableBooksOwnedBy(Integer ownerId);
+
+    @Query("""
+            SELECT book FROM Book book
+            JOIN FETCH book.owner
+            WHERE book.id IN :bookIds
+            AND book.archived = false
+            AND book.shareable = true
+            AND book.owner.id != :userId
+            """)
+    List<Book> findAllDisplayableBooksByIds(Collection<Integer> bookIds, Integer userId);
+
+    @Query("""
+            SELECT new com.teguh.book.book.BookVersion(
+                book.id, book.createdDate, book.lastModifiedDate, COUNT(feedback.id))
+            FROM Book book
+            LEFT JOIN book.feedbacks feedback
+            WHERE book.id = :bookId
+            GROUP BY book.id, book.createdDate, book.lastModifiedDate
+            """)
+    Optional<BookVersion> findVersionById(Integer bookId);
+
+    @Query("SELECT book.coverBook FROM Book book WHERE book.id = :bookId")
+    Optional<String> findCoverBookById(Integer bookId);
+
+    @Query("""
+            SELECT new com.teguh.book.export.BookExportRow(
+                book.id, book.title, book.authorName, book.isbn, book.synopsis,
+                book.archived, book.shareable, AVG(feedback.rating), book.createdDate)
+            FROM Book book
+            LEFT JOIN book.feedbacks feedback
+            WHERE book.owner.id = :ownerId
+            GROUP BY book.id
+            ORDER BY book.id
+            """)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<BookExportRow> streamExportByOwnerId(Integer ownerId);
 }
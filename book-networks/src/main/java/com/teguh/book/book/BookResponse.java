@@ -18,8 +18,20 @@ public class BookResponse {
     private String isbn;
     private String synopsis;
     private String owner;
+    /*
+     * The cover image inlined as before coverUrl existed, kept while clients
+     * move to the link. Off with application.file.inline-covers; the catalog
+     * service never fills it.
+     */
+    @Deprecated
     private byte[] cover;
+    // Relative to the API root; the image itself is served by GET books/cover/{book-id}
+    private String coverUrl;
     private double rate;
     private boolean archived;
     private boolean shareable;
+
+    public static String coverUrl(Integer bookId, String coverBook) {
+        return coverBook == null || coverBook.isBlank() ? null : "books/cover/" + bookId;
+    }
 }
@@ -1,24 +1,41 @@
 package com.teguh.book.book;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.teguh.book.cache.NearCache;
+import com.teguh.book.cache.SingleFlight;
+import com.teguh.book.common.ETagUtils;
 import com.teguh.book.common.PageResponse;
+import com.teguh.book.event.BookCreated;
+import com.teguh.book.event.DomainEventBus;
+import com.teguh.book.event.LoanReturned;
+import com.teguh.book.event.LoanStarted;
+import com.teguh.book.event.ReturnApproved;
 import com.teguh.book.exception.OperationNotPermittedException;
 import com.teguh.book.file.FileStorageService;
 import com.teguh.book.history.BookTransactionHistory;
 import com.teguh.book.history.BookTransactionHistoryRepository;
-import com.teguh.book.user.User;
+import com.teguh.book.security.AuthenticatedUser;
+import com.teguh.book.user.UserRepository;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -29,45 +46,107 @@ public class BookService {
     private final BookMapper bookMapper;
     private final BookRepository bookRepository;
     private final BookTransactionHistoryRepository transactionHistoryRepository;
+    private final UserRepository userRepository;
     private final FileStorageService fileStorageService;
+    private final DomainEventBus domainEventBus;
+    private final NearCache<BookDetails> bookCache;
+    private final SingleFlight<BookFeedHead> bookFeedFlight;
+    private final TransactionTemplate readOnlyTransactionTemplate;
 
+    @Transactional
     public Integer save(BookRequest request, Authentication connectedUser) {
-        User user = ((User) connectedUser.getPrincipal());
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
         Book book = bookMapper.toBook(request);
-        book.setOwner(user);
+        // Only the owner_id is written, so a reference is enough
+        book.setOwner(userRepository.getReferenceById(user.id()));
+
+        Integer bookId = bookRepository.save(book).getId();
+        // A request with an id updates the book; only new books count as created
+        if (request.id() == null) {
+            domainEventBus.publish(new BookCreated(bookId, user.id()));
+        } else {
+            bookCache.invalidate(bookId);
+        }
+        return bookId;
+    }
 
-        return bookRepository.save(book).getId();
+    /*
+     * Not @Transactional: a cache hit should not take a connection. The ETag
+     * is cached with the body, so a herd of revalidations costs one load.
+     */
+    public BookDetails findById(Integer bookId) {
+        BookDetails details = bookCache.get(bookId, () -> readOnlyTransactionTemplate.execute(
+                status -> loadBookDetails(bookId)));
+        if (details == null) {
+            throw new EntityNotFoundException("No book found with ID::" + bookId);
+        }
+        return details;
     }
 
-    public BookResponse findById(Integer bookId) {
-        return bookRepository.findById(bookId)
-                .map(bookMapper::toBookResponse)
-                .orElseThrow(() -> new EntityNotFoundException("No book found with ID::" + bookId));
+    // The version first: a feedback landing in between makes the ETag older than the body, never newer
+    private BookDetails loadBookDetails(Integer bookId) {
+        return bookRepository.findVersionById(bookId)
+                .flatMap(version -> bookRepository.findById(bookId)
+                        .map(book -> new BookDetails(bookMapper.toBookResponse(book), version.toETag())))
+                .orElse(null);
     }
 
-    public PageResponse<BookResponse> findAllBooks(int page, int size, Authentication connectedUser) {
-        User user = ((User) connectedUser.getPrincipal());
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        Page<Book> books = bookRepository.findAllDisplayableBooks(pageable, user.getId());
-        List<BookResponse> bookResponse = mapToList(books.stream(), bookMapper::toBookResponse);
-        return pageResponse(bookResponse, books);
+    /*
+     * Not @Transactional: requests sharing a first page should not hold a
+     * connection while they wait. The first page is cut from the feed head
+     * shared by all readers, so a herd costs one page load whoever is in it;
+     * only readers who own books of that page load their own.
+     */
+    public PageResponse<BookResponse> findAllBooks(int page, int size, BookFeedSort sort, Authentication connectedUser) {
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
+        if (page == 0) {
+            BookFeedHead head = bookFeedFlight.execute(size + ":" + sort,
+                    () -> readOnlyTransactionTemplate.execute(status -> loadBookFeedHead(size, sort)));
+            if (head.isComplete() || head.countOwnedBy(user.id()) == 0) {
+                return firstPageOf(head, size, user);
+            }
+        }
+        return readOnlyTransactionTemplate.execute(status -> loadBookFeed(page, size, sort, user));
+    }
+
+    @Transactional(readOnly = true)
+    public BookCover findCover(Integer bookId) {
+        String coverPath = bookRepository.findCoverBookById(bookId).orElse(null);
+        if (StringUtils.isBlank(coverPath)) {
+            throw new EntityNotFoundException("No cover found for book with ID::" + bookId);
+        }
+        Path file = Path.of(coverPath).toAbsolutePath();
+        long length;
+        try {
+            length = Files.size(file);
+        } catch (IOException e) {
+            throw new EntityNotFoundException("No cover found for book with ID::" + bookId);
+        }
+        // Every upload is a new file, so its name identifies the bytes
+        return new BookCover(
+                ETagUtils.weakETag(bookId, file.getFileName()),
+                MediaTypeFactory.getMediaType(coverPath).orElse(MediaType.APPLICATION_OCTET_STREAM),
+                file,
+                length);
     }
 
+    @Transactional(readOnly = true)
     public PageResponse<BookResponse> findAllBookByOwner(int page, int size, Authentication connectedUser) {
-        User user = ((User) connectedUser.getPrincipal());
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
-        Page<Book> books = bookRepository.findAll(BookSpecification.withOwnerId(user.getId()), pageable);
+        Page<Book> books = bookRepository.findAll(BookSpecification.withOwnerId(user.id()), pageable);
         List<BookResponse> bookResponse = mapToList(books.stream(), bookMapper::toBookResponse);
 
         return pageResponse(bookResponse, books);
     }
 
+    @Transactional(readOnly = true)
     public PageResponse<BorrowedBookResponse> findAllBorrowedBooks(
             int page, int size, Authentication connectedUser) {
-        User user = ((User) connectedUser.getPrincipal());
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
         Page<BookTransactionHistory> allBorrowedBooks = transactionHistoryRepository
-                .findAllBorrowedBooks(pageable, user.getId());
+                .findAllBorrowedBooks(pageable, user.id());
 
         List<BorrowedBookResponse> bookResponse = mapToList(allBorrowedBooks.stream(),
                 bookMapper::toBorrowedBookResponse);
@@ -75,13 +154,14 @@ public class BookService {
         return pageResponse(bookResponse, allBorrowedBooks);
     }
 
+    @Transactional(readOnly = true)
     public PageResponse<BorrowedBookResponse> findAllReturnedBooks(
             int page, int size, Authentication connectedUser) {
 
-        User user = ((User) connectedUser.getPrincipal());
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
         Page<BookTransactionHistory> allBorrowedBooks = transactionHistoryRepository
-                .findAllReturnedBooks(pageable, user.getId());
+                .findAllReturnedBooks(pageable, user.id());
 
         List<BorrowedBookResponse> bookResponse = mapToList(allBorrowedBooks.stream(),
                 bookMapper::toBorrowedBookResponse);
@@ -89,92 +169,139 @@ public class BookService {
         return pageResponse(bookResponse, allBorrowedBooks);
     }
 
+    @Transactional
     public Integer updateShareableStatus(Integer bookId, Authentication connectedUser) {
         Book book = findBookBy(bookId);
 
-        User user = ((User) connectedUser.getPrincipal());
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
         if (!isEqualsOwnerAndUser(book, user)) {
             throwOperationNotPermitted("You cannot update other books shareable status");
         }
 
         book.setShareable(!book.isShareable());
         bookRepository.save(book);
+        bookCache.invalidate(bookId);
         return bookId;
     }
 
+    @Transactional
     public Integer updateArchivedStatus(Integer bookId, Authentication connectedUser) {
         Book book = findBookBy(bookId);
-        User user = ((User) connectedUser.getPrincipal());
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
         if (!isEqualsOwnerAndUser(book, user)) {
             throwOperationNotPermitted("You cannot update other books archived status");
         }
         book.setArchived(!book.isArchived());
         bookRepository.save(book);
+        bookCache.invalidate(bookId);
         return bookId;
     }
 
+    @Transactional
     public Integer borrowBook(Integer bookId, Authentication connectedUser) {
         Book book = findBookBy(bookId);
-        User user = ((User) connectedUser.getPrincipal());
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
         bookArchivedOrNotShareable(book, "The requested book cannot be borrowed since it is archived or not shareable");
         if (isEqualsOwnerAndUser(book, user)) {
             throwOperationNotPermitted("You cannot borrow your own book");
         }
 
-        final boolean isAlreadyBorrowed = transactionHistoryRepository.isAlreadyBorrowedByUser(bookId, user.getId());
+        final boolean isAlreadyBorrowed = transactionHistoryRepository.isAlreadyBorrowedByUser(bookId, user.id());
         if (isAlreadyBorrowed) {
             throwOperationNotPermitted("The requested book is already borrowed");
         }
         BookTransactionHistory transactionHistory = BookTransactionHistory
                 .builder()
-                .user(user)
+                .user(userRepository.getReferenceById(user.id()))
                 .book(book)
                 .returned(false)
                 .returnApproved(false)
                 .build();
 
-        return transactionHistoryRepository.save(transactionHistory).getId();
+        Integer transactionId = transactionHistoryRepository.save(transactionHistory).getId();
+        domainEventBus.publish(new LoanStarted(
+                transactionId, bookId, book.getTitle(), book.getOwner().getId(), user.id()));
+        return transactionId;
     }
 
+    @Transactional
     public Integer returnBorrowedBook(Integer bookId, Authentication connectedUser) {
         Book book = findBookBy(bookId);
         bookArchivedOrNotShareable(book, "The requested book cannot be borrowed since it is archived or not shareable");
-        User user = ((User) connectedUser.getPrincipal());
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
         if (isEqualsOwnerAndUser(book, user)) {
             throwOperationNotPermitted("You cannot borrow or return your own book");
         }
 
         BookTransactionHistory transactionHistory = transactionHistoryRepository
-                .findByBookIdAndUserId(bookId, user.getId())
+                .findByBookIdAndUserId(bookId, user.id())
                 .orElseThrow(() -> new OperationNotPermittedException("You did not borrow this book"));
 
         transactionHistory.setReturned(true);
-        return transactionHistoryRepository.save(transactionHistory).getId();
+        Integer transactionId = transactionHistoryRepository.save(transactionHistory).getId();
+        domainEventBus.publish(new LoanReturned(
+                transactionId, bookId, book.getTitle(), book.getOwner().getId(), user.id()));
+        return transactionId;
     }
 
+    @Transactional
     public Integer approveReturnBorrowedBook(Integer bookId, Authentication connectedUser) {
         Book book = findBookBy(bookId);
         bookArchivedOrNotShareable(book, "The requested book cannot be borrowed since it is archived or not shareable");
-        User user = ((User) connectedUser.getPrincipal());
-        if (isEqualsOwnerAndUser(book, user)) {
-            throwOperationNotPermitted("You cannot borrow or return your own book");
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
+        if (!isEqualsOwnerAndUser(book, user)) {
+            throwOperationNotPermitted("You cannot approve the return of other books");
         }
 
         BookTransactionHistory transactionHistory = transactionHistoryRepository
-                .findByBookIdAndOwnerId(bookId, user.getId())
+                .findByBookIdAndOwnerId(bookId, user.id())
                 .orElseThrow(() -> new OperationNotPermittedException(
                         "The Book is not return yet. You cannot approve its return"));
 
         transactionHistory.setReturnApproved(true);
-        return transactionHistoryRepository.save(transactionHistory).getId();
+        Integer transactionId = transactionHistoryRepository.save(transactionHistory).getId();
+        domainEventBus.publish(new ReturnApproved(
+                transactionId, bookId, book.getTitle(), book.getOwner().getId(), transactionHistory.getUser().getId()));
+        return transactionId;
     }
 
+    @Transactional
     public void uploadBookCoverPicture(MultipartFile file, Authentication connectedUser, Integer bookId) {
         Book book = findBookBy(bookId);
-        User user = ((User) connectedUser.getPrincipal());
-        String bookCover = fileStorageService.saveFile(file, user.getId());
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
+        String bookCover = fileStorageService.saveFile(file, user.id());
         book.setCoverBook(bookCover);
         bookRepository.save(book);
+        bookCache.invalidate(bookId);
+    }
+
+    private PageResponse<BookResponse> loadBookFeed(int page, int size, BookFeedSort sort, AuthenticatedUser user) {
+        Pageable pageable = PageRequest.of(page, size, sort.toSort());
+        Page<Book> books = bookRepository.findAllDisplayableBooks(pageable, user.id());
+        List<BookResponse> bookResponse = mapToList(books.stream(), bookMapper::toBookResponse);
+        return pageResponse(bookResponse, books);
+    }
+
+    private BookFeedHead loadBookFeedHead(int size, BookFeedSort sort) {
+        Page<Book> books = bookRepository.findAllShareableBooks(PageRequest.of(0, size, sort.toSort()));
+        List<BookFeedHead.Row> rows = books.stream()
+                .map(book -> new BookFeedHead.Row(book.getOwner().getId(), bookMapper.toBookResponse(book)))
+                .toList();
+        return new BookFeedHead(rows, books.getTotalElements());
+    }
+
+    // The head holds a full page of books the reader does not own, or all of them
+    private PageResponse<BookResponse> firstPageOf(BookFeedHead head, int size, AuthenticatedUser user) {
+        List<BookResponse> content = head.rows().stream()
+                .filter(row -> !row.ownerId().equals(user.id()))
+                .map(BookFeedHead.Row::book)
+                .toList();
+        long ownBooks = head.isComplete()
+                ? head.countOwnedBy(user.id())
+                : bookRepository.countShareableBooksOwnedBy(user.id());
+        long totalElements = head.totalElements() - ownBooks;
+        int totalPages = (int) Math.ceil((double) totalElements / size);
+        return new PageResponse<>(content, 0, size, totalElements, totalPages, true, totalPages <= 1);
     }
 
     private <T, P> PageResponse<T> pageResponse(List<T> content, Page<P> page) {
@@ -197,8 +324,8 @@ public class BookService {
         return stream.map(mapper).toList();
     }
 
-    private boolean isEqualsOwnerAndUser(Book book, User user) {
-        return Objects.equals(book.getOwner().getId(), user.getId());
+    private boolean isEqualsOwnerAndUser(Book book, AuthenticatedUser user) {
+        return Objects.equals(book.getOwner().getId(), user.id());
     }
 
     private void bookArchivedOrNotShareable(Book book, String message) {
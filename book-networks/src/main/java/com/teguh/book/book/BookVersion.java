@@ -0,0 +1,24 @@
+package com.teguh.book.book;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import com.teguh.book.common.ETagUtils;
+
+/*
+ * Everything BookResponse is derived from: the book row itself and the
+ * feedbacks used for the rate.
+ */
+public record BookVersion(
+        Integer bookId,
+        LocalDateTime createdDate,
+        LocalDateTime lastModifiedDate,
+        Long feedbackCount) {
+
+    public String toETag() {
+        return ETagUtils.weakETag(
+                bookId,
+                Objects.requireNonNullElse(lastModifiedDate, createdDate),
+                feedbackCount);
+    }
+}
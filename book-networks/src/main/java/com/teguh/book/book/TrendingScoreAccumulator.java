@@ -0,0 +1,125 @@
+package com.teguh.book.book;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.teguh.book.event.BookCreated;
+import com.teguh.book.event.DomainEvent;
+import com.teguh.book.event.DomainEventConsumer;
+import com.teguh.book.event.FeedbackAdded;
+import com.teguh.book.event.LoanStarted;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Keeps book.trending_score as a forward-decayed popularity score: every
+ * borrow, feedback or creation adds weight * 2^((t - landmark) / halfLife).
+ * Newer activity is worth exponentially more, so ordering by the stored sum
+ * ranks books by their decayed score at any instant without ever rewriting
+ * old rows, and the feed can read it straight from an index.
+ *
+ * Increments are summed per book and flushed as one transactional JDBC
+ * batch. A flush takes each sum out of the map atomically, so an increment
+ * added meanwhile starts a new sum for the next flush instead of being lost;
+ * a failed flush puts its sums back, and the last one runs on shutdown.
+ * A score doubles every half-life; with the default of 7 days a double lasts
+ * about 19 years past the landmark before the landmark has to move.
+ */
+@Component
+@Slf4j
+public class TrendingScoreAccumulator implements DomainEventConsumer {
+    private static final String INCREMENT_SCORE = "UPDATE book SET trending_score = trending_score + ? WHERE id = ?";
+
+    private final Map<Integer, Double> pending = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Instant landmark;
+    private final double halfLifeSeconds;
+    private final double borrowWeight;
+    private final double feedbackWeight;
+    private final double createdWeight;
+
+    public TrendingScoreAccumulator(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${application.trending.landmark:2025-01-01}") LocalDate landmark,
+            @Value("${application.trending.half-life:7d}") Duration halfLife,
+            @Value("${application.trending.weight.borrow:1.0}") double borrowWeight,
+            @Value("${application.trending.weight.feedback:1.0}") double feedbackWeight,
+            @Value("${application.trending.weight.created:0.5}") double createdWeight) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.landmark = landmark.atStartOfDay().toInstant(ZoneOffset.UTC);
+        this.halfLifeSeconds = halfLife.toSeconds();
+        this.borrowWeight = borrowWeight;
+        this.feedbackWeight = feedbackWeight;
+        this.createdWeight = createdWeight;
+    }
+
+    @Override
+    public String name() {
+        return "trending-score";
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        double decay = Math.pow(2, Duration.between(landmark, Instant.now()).toSeconds() / halfLifeSeconds);
+        for (DomainEvent event : events) {
+            if (event instanceof LoanStarted loan) {
+                add(loan.bookId(), borrowWeight * decay);
+            } else if (event instanceof FeedbackAdded feedback && feedback.rating() != null) {
+                // A 1-star review should count for less than a 5-star one
+                add(feedback.bookId(), feedbackWeight * feedback.rating() / 5 * decay);
+            } else if (event instanceof BookCreated created) {
+                add(created.bookId(), createdWeight * decay);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.trending.flush-interval:10s}")
+    @PreDestroy
+    public void flush() {
+        List<Object[]> increments = new ArrayList<>();
+        for (Integer bookId : pending.keySet()) {
+            Double increment = pending.remove(bookId);
+            if (increment != null) {
+                increments.add(new Object[] { increment, bookId });
+            }
+        }
+        if (increments.isEmpty()) {
+            return;
+        }
+
+        // Same row order on every instance, so concurrent flushes cannot deadlock
+        increments.sort(Comparator.comparingInt(row -> (Integer) row[1]));
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INCREMENT_SCORE, increments));
+        } catch (RuntimeException e) {
+            // The batch rolls back whole; its sums go out with the next flush
+            increments.forEach(row -> add((Integer) row[1], (Double) row[0]));
+            throw e;
+        }
+        log.debug("Flushed trending score increments of {} books", increments.size());
+    }
+
+    private void add(Integer bookId, double increment) {
+        if (bookId != null && increment > 0) {
+            pending.merge(bookId, increment, Double::sum);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.teguh.book.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Small per-instance cache whose entries are dropped on every instance when
+ * invalidate() is called (see NearCacheManager). Entries also expire after a
+ * TTL, which bounds staleness if an invalidation is ever missed. The size
+ * bound is approximate: once full, an arbitrary entry makes room. Concurrent
+ * misses of one key share a single load.
+ */
+public class NearCache<V> {
+    private final String name;
+    private final NearCacheManager manager;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    // Bumped on every eviction so a load racing an invalidation is not cached
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final SingleFlight<V> loads;
+
+    NearCache(
+            String name,
+            NearCacheManager manager,
+            int maxEntries,
+            long ttlNanos,
+            long loadMaxWaitNanos,
+            MeterRegistry meterRegistry) {
+        this.name = name;
+        this.manager = manager;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlNanos;
+        this.hits = meterRegistry.counter("near_cache.requests", "cache", name, "result", "hit");
+        this.misses = meterRegistry.counter("near_cache.requests", "cache", name, "result", "miss");
+        this.loads = new SingleFlight<>("near_cache." + name, 0, maxEntries, loadMaxWaitNanos, meterRegistry);
+        Gauge.builder("near_cache.size", entries, Map::size).tag("cache", name).register(meterRegistry);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /*
+     * Returns the cached value or loads it. A null from the loader is passed
+     * through and not cached, so callers can map it to their not-found error.
+     */
+    public V get(Object key, Supplier<V> loader) {
+        String cacheKey = String.valueOf(key);
+        Entry<V> entry = entries.get(cacheKey);
+        if (entry != null && entry.expiresAt() - System.nanoTime() > 0) {
+            hits.increment();
+            return entry.value();
+        }
+
+        misses.increment();
+        return loads.execute(cacheKey, () -> load(cacheKey, loader));
+    }
+
+    // Drops the key here after commit and on every other instance
+    public void invalidate(Object key) {
+        manager.invalidate(this, String.valueOf(key));
+    }
+
+    void evictLocally(String key) {
+        generation.incrementAndGet();
+        entries.remove(key);
+        loads.forget(key);
+    }
+
+    void clearLocally() {
+        generation.incrementAndGet();
+        entries.clear();
+        loads.forgetAll();
+    }
+
+    private V load(String cacheKey, Supplier<V> loader) {
+        long loadedGeneration = generation.get();
+        V value = loader.get();
+        if (value != null && generation.get() == loadedGeneration) {
+            if (entries.size() >= maxEntries) {
+                evictOne();
+            }
+            entries.put(cacheKey, new Entry<>(value, System.nanoTime() + ttlNanos));
+        }
+        return value;
+    }
+
+    private void evictOne() {
+        Iterator<String> keys = entries.keySet().iterator();
+        if (keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
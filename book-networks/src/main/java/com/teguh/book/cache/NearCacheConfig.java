@@ -0,0 +1,54 @@
+package com.teguh.book.cache;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.teguh.book.book.BookDetails;
+import com.teguh.book.book.BookFeedHead;
+import com.teguh.book.role.Role;
+import com.teguh.book.security.AuthenticatedUser;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class NearCacheConfig {
+
+    // Principals by email of tokens without the user id claim; logins never read it
+    @Bean
+    public NearCache<AuthenticatedUser> userCache(
+            NearCacheManager nearCacheManager,
+            @Value("${application.cache.users.max-entries:10000}") int maxEntries,
+            @Value("${application.cache.users.ttl:5m}") Duration ttl) {
+        return nearCacheManager.create("users", maxEntries, ttl);
+    }
+
+    // Book details and their ETag by id; covers are only linked, so entries stay small
+    @Bean
+    public NearCache<BookDetails> bookCache(
+            NearCacheManager nearCacheManager,
+            @Value("${application.cache.books.max-entries:200}") int maxEntries,
+            @Value("${application.cache.books.ttl:1m}") Duration ttl) {
+        return nearCacheManager.create("books", maxEntries, ttl);
+    }
+
+    // First feed pages of all owners, loaded or loaded within the window; one per page size and sort
+    @Bean
+    public SingleFlight<BookFeedHead> bookFeedFlight(
+            MeterRegistry meterRegistry,
+            @Value("${application.cache.book-feed.window:1s}") Duration window,
+            @Value("${application.cache.book-feed.max-entries:1000}") int maxEntries,
+            @Value("${application.cache.single-flight.max-wait:5s}") Duration maxWait) {
+        return new SingleFlight<>("book_feed", window.toNanos(), maxEntries, maxWait.toNanos(), meterRegistry);
+    }
+
+    @Bean
+    public NearCache<Role> roleCache(
+            NearCacheManager nearCacheManager,
+            @Value("${application.cache.roles.max-entries:16}") int maxEntries,
+            @Value("${application.cache.roles.ttl:1h}") Duration ttl) {
+        return nearCacheManager.create("roles", maxEntries, ttl);
+    }
+}
@@ -0,0 +1,166 @@
+package com.teguh.book.cache;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Keeps the near caches of all instances coherent through Postgres
+ * LISTEN/NOTIFY, so scaling out needs no extra infrastructure.
+ *
+ * An invalidation inside a transaction sends pg_notify on the transaction's
+ * own connection: Postgres delivers it to the other instances only when (and
+ * if) the transaction commits. The local entry is dropped after commit too.
+ * Each instance listens on a dedicated connection outside the pool and
+ * ignores its own notifications. If that connection breaks, notifications may
+ * have been missed, so every cache is cleared when it reconnects.
+ */
+@Service
+@Slf4j
+public class NearCacheManager implements SmartLifecycle {
+    private static final String CHANNEL = "near_cache_invalidation";
+    private static final String NOTIFY = "SELECT pg_notify(?, ?)";
+    private static final ResultSetExtractor<Void> IGNORE_RESULT = resultSet -> null;
+
+    private final Map<String, NearCache<?>> caches = new ConcurrentHashMap<>();
+    private final String instanceId = UUID.randomUUID().toString();
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final long loadMaxWaitNanos;
+
+    private volatile Thread listener;
+    private volatile boolean running;
+
+    public NearCacheManager(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.username}") String username,
+            @Value("${spring.datasource.password}") String password,
+            @Value("${application.cache.single-flight.max-wait:5s}") Duration loadMaxWait) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.loadMaxWaitNanos = loadMaxWait.toNanos();
+    }
+
+    public <V> NearCache<V> create(String name, int maxEntries, Duration ttl) {
+        NearCache<V> cache = new NearCache<>(name, this, maxEntries, ttl.toNanos(), loadMaxWaitNanos, meterRegistry);
+        if (caches.putIfAbsent(name, cache) != null) {
+            throw new IllegalStateException("Near cache " + name + " already exists");
+        }
+        return cache;
+    }
+
+    void invalidate(NearCache<?> cache, String key) {
+        meterRegistry.counter("near_cache.invalidations", "cache", cache.name(), "source", "local").increment();
+        jdbcTemplate.query(NOTIFY, IGNORE_RESULT, CHANNEL, instanceId + "|" + cache.name() + "|" + key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evictLocally(key);
+                }
+            });
+        } else {
+            cache.evictLocally(key);
+        }
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password);
+                    Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + CHANNEL);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                caches.values().forEach(NearCache::clearLocally);
+                log.info("Listening for near cache invalidations as instance {}", instanceId);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(500);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            apply(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Near cache invalidation listener lost its connection, retrying", e);
+                    caches.values().forEach(NearCache::clearLocally);
+                    sleepBeforeReconnect();
+                }
+            }
+        }
+    }
+
+    private void apply(String payload) {
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length != 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+        NearCache<?> cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.evictLocally(parts[2]);
+            meterRegistry.counter("near_cache.invalidations", "cache", cache.name(), "source", "remote").increment();
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            TimeUnit.SECONDS.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listener = new Thread(this::listenLoop, "near-cache-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = listener;
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(2));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,124 @@
+package com.teguh.book.cache;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Collapses concurrent loads of the same key into one: the first caller runs
+ * the loader, callers arriving while it runs wait for its result instead of
+ * running their own. With a window, a completed result keeps being handed out
+ * for that long, so a burst right behind the first one costs nothing either.
+ * Failures are shared with the waiting callers but never kept.
+ *
+ * A caller waits at most maxWait and then loads on its own, so a load stuck
+ * on a dead connection does not hold every later caller of its key. Expired
+ * results are swept at most once per window, and once maxEntries are kept a
+ * new result is handed to its waiters but not kept.
+ */
+public class SingleFlight<V> {
+    private final String name;
+    private final long windowNanos;
+    private final int maxEntries;
+    private final long maxWaitNanos;
+    private final Map<Object, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter followers;
+    private final Counter timeouts;
+    private final AtomicLong nextSweep = new AtomicLong(System.nanoTime());
+
+    public SingleFlight(String name, long windowNanos, int maxEntries, long maxWaitNanos, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.windowNanos = windowNanos;
+        this.maxEntries = maxEntries;
+        this.maxWaitNanos = maxWaitNanos;
+        this.leaders = meterRegistry.counter("single_flight.requests", "flight", name, "result", "loaded");
+        this.followers = meterRegistry.counter("single_flight.requests", "flight", name, "result", "shared");
+        this.timeouts = meterRegistry.counter("single_flight.requests", "flight", name, "result", "timed_out");
+    }
+
+    public V execute(Object key, Supplier<V> loader) {
+        Flight<V> mine = new Flight<>();
+        long now = System.nanoTime();
+        sweep(now);
+        Flight<V> flight = flights.compute(key, (k, current) -> current == null || current.isStale(now) ? mine : current);
+        if (flight != mine) {
+            try {
+                V value = flight.await(maxWaitNanos);
+                followers.increment();
+                return value;
+            } catch (TimeoutException e) {
+                timeouts.increment();
+                return loader.get();
+            }
+        }
+
+        leaders.increment();
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            flights.remove(key, mine);
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+        mine.expiresAt = System.nanoTime() + windowNanos;
+        mine.result.complete(value);
+        if (windowNanos <= 0 || flights.size() > maxEntries) {
+            flights.remove(key, mine);
+        }
+        return value;
+    }
+
+    // Callers arriving after this start a new load, for when the value is known to have changed
+    public void forget(Object key) {
+        flights.remove(key);
+    }
+
+    public void forgetAll() {
+        flights.clear();
+    }
+
+    // At most once per window: the entries it would find stale are at least that old
+    private void sweep(long now) {
+        long due = nextSweep.get();
+        if (windowNanos <= 0 || now - due < 0 || !nextSweep.compareAndSet(due, now + windowNanos)) {
+            return;
+        }
+        flights.values().removeIf(flight -> flight.isStale(now));
+    }
+
+    private final class Flight<T> {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private volatile long expiresAt;
+
+        boolean isStale(long now) {
+            return result.isDone() && (result.isCompletedExceptionally() || expiresAt - now <= 0);
+        }
+
+        T await(long timeoutNanos) throws TimeoutException {
+            try {
+                return result.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a " + name + " load", e);
+            }
+        }
+    }
+}
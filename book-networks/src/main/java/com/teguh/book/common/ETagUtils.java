@@ -0,0 +1,27 @@
+package com.teguh.book.common;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+public class ETagUtils {
+
+    public static String weakETag(Object... parts) {
+        return Arrays.stream(parts)
+                .map(ETagUtils::toTagPart)
+                .collect(Collectors.joining("-", "W/\"", "\""));
+    }
+
+    private static String toTagPart(Object part) {
+        if (part == null) {
+            return "0";
+        }
+        if (part instanceof LocalDateTime dateTime) {
+            long nanos = dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + dateTime.getNano();
+            return Long.toHexString(nanos);
+        }
+        return part.toString();
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.teguh.book.common;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/*
+ * Id from the entity's own <entity>_seq sequence with the pooled-lo optimizer:
+ * one nextval reserves allocationSize ids starting at the returned value, so
+ * the inserts in between, batched or not, need no round trip for their id.
+ * allocationSize must equal the INCREMENT BY of the sequence. Instances still
+ * on the pooled optimizer draw their blocks below the value they get, so they
+ * must not run next to this one (V12 moved the sequences past their blocks).
+ */
+@IdGeneratorType(PooledSequenceGenerator.class)
+@Retention(RUNTIME)
+@Target({ FIELD, METHOD })
+public @interface PooledSequence {
+    int allocationSize() default 50;
+}
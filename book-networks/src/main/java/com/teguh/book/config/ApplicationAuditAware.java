@@ -7,7 +7,7 @@ import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
-import com.teguh.book.user.User;
+import com.teguh.book.security.AuthenticatedUser;
 
 public class ApplicationAuditAware implements AuditorAware<Integer> {
 
@@ -19,8 +19,8 @@ public class ApplicationAuditAware implements AuditorAware<Integer> {
                 || authentication instanceof AnonymousAuthenticationToken) {
             return Optional.empty();
         }
-        User userPrincipal = (User) authentication.getPrincipal();
-        return Optional.ofNullable(userPrincipal.getId());
+        AuthenticatedUser userPrincipal = (AuthenticatedUser) authentication.getPrincipal();
+        return Optional.ofNullable(userPrincipal.id());
     }
 
 }
@@ -3,6 +3,7 @@ package com.teguh.book.config;
 import java.util.Arrays;
 import java.util.Collections;
 
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.AuditorAware;
@@ -14,10 +15,16 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
 
+import com.teguh.book.security.IdempotencyFilter;
+
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 
 @Configuration
@@ -48,6 +55,13 @@ public class BeansConfig {
         return new ApplicationAuditAware();
     }
 
+    @Bean
+    public TransactionTemplate readOnlyTransactionTemplate(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
     @Bean
     public CorsFilter corsFilter() {
         final UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -58,7 +72,11 @@ public class BeansConfig {
                 HttpHeaders.ORIGIN,
                 HttpHeaders.CONTENT_TYPE,
                 HttpHeaders.ACCEPT,
-                HttpHeaders.AUTHORIZATION));
+                HttpHeaders.AUTHORIZATION,
+                HttpHeaders.IF_NONE_MATCH,
+                "Last-Event-ID",
+                IdempotencyFilter.IDEMPOTENCY_KEY));
+        config.setExposedHeaders(Arrays.asList(HttpHeaders.ETAG, IdempotencyFilter.IDEMPOTENT_REPLAYED));
         config.setAllowedMethods(Arrays.asList(
                 "GET",
                 "POST",
@@ -69,4 +87,23 @@ public class BeansConfig {
         return new CorsFilter(source);
 
     }
+
+    /*
+     * Book and feedback pages without an explicit validator still get a weak
+     * ETag from the body, so unchanged pages go back as 304 without a payload.
+     */
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> shallowEtagHeaderFilter() {
+        ShallowEtagHeaderFilter filter = new ShallowEtagHeaderFilter() {
+            // Covers carry their own ETag and are streamed; the caching wrapper would hold each one on the heap
+            @Override
+            protected boolean shouldNotFilter(HttpServletRequest request) {
+                return request.getServletPath().startsWith("/books/cover/");
+            }
+        };
+        filter.setWriteWeakETag(true);
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/books/*", "/feedbacks/*");
+        return registration;
+    }
 }
@@ -0,0 +1,22 @@
+package com.teguh.book.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+/*
+ * Spring Boot registers every Module bean on the auto-configured ObjectMapper.
+ * Blackbird replaces reflective getter calls with generated lambdas, which
+ * matters for the page responses serialized on every list request.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.teguh.book.config;
+
+import java.util.List;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import com.teguh.book.book.BookVersion;
+import com.teguh.book.common.PooledSequenceGenerator;
+import com.teguh.book.export.BookExportRow;
+import com.teguh.book.export.LoanExportRow;
+import com.teguh.book.feedback.FeedbackPageVersion;
+import com.teguh.book.handler.ExceptionResponse;
+import com.teguh.book.loan.LoanEventResponse;
+
+/*
+ * What a native image cannot discover on its own. Spring AOT already covers
+ * beans, entities, repositories and controller payloads, and Lombok builders
+ * are plain generated code; this adds the reflection, ServiceLoader and
+ * resource lookups that happen outside of those.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+    // jjwt-api instantiates its implementation and picks the Jackson serializer by class name
+    private static final List<String> JJWT_TYPES = List.of(
+            "io.jsonwebtoken.impl.DefaultHeader",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParser",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+            "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer");
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String type : JJWT_TYPES) {
+            hints.reflection().registerTypeIfPresent(classLoader, type,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        // Named by @IdGeneratorType on PooledSequence and instantiated by Hibernate at boot
+        hints.reflection().registerType(PooledSequenceGenerator.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+
+        // Mail templates are resolved by name (EmailTemplateName) at send time
+        hints.resources().registerPattern("templates/*.html");
+
+        // Written with ObjectMapper directly by filters, SSE and exports, not through a controller signature
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                ExceptionResponse.class, LoanEventResponse.class, BookExportRow.class, LoanExportRow.class);
+
+        // Created by Hibernate from JPQL constructor expressions
+        for (Class<?> type : List.of(BookVersion.class, FeedbackPageVersion.class, BookExportRow.class,
+                LoanExportRow.class)) {
+            hints.reflection().registerType(TypeReference.of(type), MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+    }
+}
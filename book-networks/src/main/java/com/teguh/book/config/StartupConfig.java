@@ -0,0 +1,53 @@
+package com.teguh.book.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/*
+ * The prod profile turns lazy initialization on, and this filter turns it
+ * back off for everything except the API docs and the mail stack. Those are
+ * slow to build and never needed to serve the first request, so a new node
+ * starts taking traffic sooner; everything else still fails fast on boot.
+ */
+@Configuration
+@Profile("prod")
+public class StartupConfig {
+    private static final List<String> DEFERRED_PACKAGES = List.of(
+            "org.springdoc.",
+            "io.swagger.",
+            "org.thymeleaf.",
+            "org.springframework.mail.",
+            "org.springframework.boot.autoconfigure.mail.",
+            "org.springframework.boot.autoconfigure.thymeleaf.",
+            "com.teguh.book.email.");
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerUnlessDocsOrMail() {
+        return (beanName, beanDefinition, beanType) -> beanType == null || !isDeferred(beanType.getName());
+    }
+
+    /*
+     * The AppCDS training run refreshes the context without a database, so it
+     * turns the migrations off; every real start runs them before Hibernate
+     * validates the schema.
+     */
+    @Bean
+    FlywayMigrationStrategy flywayMigrationStrategy(
+            @Value("${application.flyway.migrate-on-startup:true}") boolean migrateOnStartup) {
+        return flyway -> {
+            if (migrateOnStartup) {
+                flyway.migrate();
+            }
+        };
+    }
+
+    private static boolean isDeferred(String typeName) {
+        return DEFERRED_PACKAGES.stream().anyMatch(typeName::startsWith);
+    }
+}
@@ -0,0 +1,4 @@
+package com.teguh.book.event;
+
+public record ActivationTokenExpired(Integer userId) implements DomainEvent {
+}
@@ -0,0 +1,4 @@
+package com.teguh.book.event;
+
+public record BookCreated(Integer bookId, Integer ownerId) implements DomainEvent {
+}
@@ -0,0 +1,10 @@
+package com.teguh.book.event;
+
+/*
+ * Facts about committed book, loan, feedback and account changes. Published through
+ * DomainEventBus, which hands them to consumers only after the transaction
+ * commits and off the request thread.
+ */
+public sealed interface DomainEvent permits BookCreated, LoanStarted, LoanReturned, ReturnApproved, FeedbackAdded,
+        ActivationTokenExpired {
+}
@@ -0,0 +1,225 @@
+package com.teguh.book.event;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * In-process dispatch of domain events. publish() only enqueues (after commit
+ * when a transaction is active). Every consumer has its own bounded queue and
+ * dispatcher thread, which drains it in batches, so a slow consumer (mail)
+ * only delays itself and never the SSE stream or the trending scores. When a
+ * consumer's queue is full the publisher waits for room up to offerTimeout,
+ * then delivers the event to that consumer itself: a lagging consumer slows
+ * the requests that feed it instead of losing their events. Stopping lets
+ * every dispatcher drain its queue until the shutdown timeout.
+ */
+@Service
+@Slf4j
+public class DomainEventBus implements SmartLifecycle {
+    private final ObjectProvider<DomainEventConsumer> consumerProvider;
+    private final MeterRegistry meterRegistry;
+    private final int queueCapacity;
+    private final int maxBatchSize;
+    private final long offerTimeoutNanos;
+    private final long shutdownTimeoutNanos;
+
+    // Resolved lazily: consumers may depend on services that publish events
+    private volatile List<Lane> lanes;
+    private volatile boolean running;
+
+    public DomainEventBus(
+            ObjectProvider<DomainEventConsumer> consumerProvider,
+            MeterRegistry meterRegistry,
+            @Value("${application.events.queue-capacity:10000}") int queueCapacity,
+            @Value("${application.events.max-batch-size:100}") int maxBatchSize,
+            @Value("${application.events.offer-timeout:50ms}") Duration offerTimeout,
+            @Value("${application.events.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        this.consumerProvider = consumerProvider;
+        this.meterRegistry = meterRegistry;
+        this.queueCapacity = queueCapacity;
+        this.maxBatchSize = maxBatchSize;
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.shutdownTimeoutNanos = shutdownTimeout.toNanos();
+    }
+
+    public void publish(DomainEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(event);
+                }
+            });
+        } else {
+            enqueue(event);
+        }
+    }
+
+    private void enqueue(DomainEvent event) {
+        meterRegistry.counter("domain_events.published", "type", event.getClass().getSimpleName()).increment();
+        for (Lane lane : lanes()) {
+            lane.offer(event);
+        }
+    }
+
+    private List<Lane> lanes() {
+        List<Lane> resolved = lanes;
+        if (resolved == null) {
+            synchronized (this) {
+                resolved = lanes;
+                if (resolved == null) {
+                    resolved = consumerProvider.orderedStream().map(Lane::new).toList();
+                    lanes = resolved;
+                }
+            }
+        }
+        return resolved;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        lanes().forEach(Lane::start);
+    }
+
+    // Dispatchers exit once their queue is empty; one still busy at the deadline is interrupted
+    @Override
+    public void stop() {
+        running = false;
+        List<Lane> started = lanes;
+        if (started == null) {
+            return;
+        }
+        long deadline = System.nanoTime() + shutdownTimeoutNanos;
+        for (Lane lane : started) {
+            lane.join(deadline);
+        }
+    }
+
+    // Stops after the web server, so requests finishing during graceful shutdown still publish
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private final class Lane {
+        private final DomainEventConsumer consumer;
+        private final BlockingQueue<DomainEvent> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final Counter callerRuns;
+        private final Timer timer;
+        private volatile boolean overflowing;
+        private Thread dispatcher;
+
+        Lane(DomainEventConsumer consumer) {
+            this.consumer = consumer;
+            this.callerRuns = Counter.builder("domain_events.caller_runs")
+                    .description("Events the publisher delivered itself because the consumer's queue stayed full")
+                    .tag("consumer", consumer.name())
+                    .register(meterRegistry);
+            this.timer = meterRegistry.timer("domain_events.consumer", "consumer", consumer.name());
+            Gauge.builder("domain_events.queue.size", queue, BlockingQueue::size)
+                    .tag("consumer", consumer.name())
+                    .register(meterRegistry);
+        }
+
+        void offer(DomainEvent event) {
+            try {
+                if (queue.offer(event, offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                    overflowing = false;
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            callerRuns.increment();
+            // Once per overflow, the counter has the rest
+            if (!overflowing) {
+                overflowing = true;
+                log.warn("Domain event queue of {} is full, publishers deliver to it until it drains", consumer.name());
+            }
+            dispatch(List.of(event));
+        }
+
+        void start() {
+            dispatcher = new Thread(this::dispatchLoop, "domain-events-" + consumer.name());
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+
+        void join(long deadline) {
+            if (dispatcher == null) {
+                return;
+            }
+            try {
+                long remaining = deadline - System.nanoTime();
+                if (remaining > 0) {
+                    TimeUnit.NANOSECONDS.timedJoin(dispatcher, remaining);
+                }
+                if (dispatcher.isAlive()) {
+                    log.warn("Domain event consumer {} did not drain before shutdown, {} events left",
+                            consumer.name(), queue.size());
+                    dispatcher.interrupt();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void dispatchLoop() {
+            List<DomainEvent> batch = new ArrayList<>(maxBatchSize);
+            while (running || !queue.isEmpty()) {
+                try {
+                    DomainEvent first = queue.poll(500, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatchSize - 1);
+                    dispatch(List.copyOf(batch));
+                } catch (InterruptedException e) {
+                    // Only stop() interrupts, once the shutdown timeout is over
+                    return;
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        private void dispatch(List<DomainEvent> events) {
+            if (events.isEmpty()) {
+                return;
+            }
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                consumer.onEvents(events);
+            } catch (RuntimeException e) {
+                meterRegistry.counter("domain_events.consumer.failures", "consumer", consumer.name()).increment();
+                log.error("Domain event consumer {} failed on a batch of {} events", consumer.name(), events.size(), e);
+            } finally {
+                sample.stop(timer);
+            }
+        }
+    }
+}
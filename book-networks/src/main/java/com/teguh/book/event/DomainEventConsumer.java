@@ -0,0 +1,15 @@
+package com.teguh.book.event;
+
+import java.util.List;
+
+public interface DomainEventConsumer {
+
+    // Used as the metrics tag, keep it stable
+    String name();
+
+    /*
+     * Receives events in publication order, in batches. Ignore the types you do
+     * not care about; an exception only affects this consumer and this batch.
+     */
+    void onEvents(List<DomainEvent> events);
+}
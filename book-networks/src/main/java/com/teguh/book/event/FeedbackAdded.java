@@ -0,0 +1,4 @@
+package com.teguh.book.event;
+
+public record FeedbackAdded(Integer feedbackId, Integer bookId, Integer userId, Double rating) implements DomainEvent {
+}
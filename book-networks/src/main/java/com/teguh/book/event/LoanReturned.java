@@ -0,0 +1,9 @@
+package com.teguh.book.event;
+
+public record LoanReturned(
+        Integer transactionId,
+        Integer bookId,
+        String bookTitle,
+        Integer ownerId,
+        Integer borrowerId) implements DomainEvent {
+}
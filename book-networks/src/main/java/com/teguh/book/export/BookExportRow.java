@@ -0,0 +1,24 @@
+package com.teguh.book.export;
+
+import java.time.LocalDateTime;
+
+public record BookExportRow(
+        Integer id,
+        String title,
+        String authorName,
+        String isbn,
+        String synopsis,
+        boolean archived,
+        boolean shareable,
+        Double rate,
+        LocalDateTime createdDate) implements ExportRow {
+
+    static final String[] HEADER = {
+            "id", "title", "authorName", "isbn", "synopsis", "archived", "shareable", "rate", "createdDate"
+    };
+
+    @Override
+    public Object[] values() {
+        return new Object[] { id, title, authorName, isbn, synopsis, archived, shareable, rate, createdDate };
+    }
+}
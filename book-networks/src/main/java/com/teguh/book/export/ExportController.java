@@ -0,0 +1,53 @@
+package com.teguh.book.export;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("exports")
+@RequiredArgsConstructor
+@Tag(name = "Export")
+public class ExportController {
+    private final ExportService exportService;
+
+    @GetMapping("/books/owner")
+    public ResponseEntity<StreamingResponseBody> exportOwnedBooks(
+            @RequestParam(name = "format", defaultValue = "CSV", required = false) ExportFormat format,
+            Authentication connectedUser) {
+        return attachment("books", format, exportService.exportOwnedBooks(format, connectedUser));
+    }
+
+    @GetMapping("/books/borrowed")
+    public ResponseEntity<StreamingResponseBody> exportBorrowedBooks(
+            @RequestParam(name = "format", defaultValue = "CSV", required = false) ExportFormat format,
+            Authentication connectedUser) {
+        return attachment("borrowed-books", format, exportService.exportBorrowedBooks(format, connectedUser));
+    }
+
+    @GetMapping("/books/returned")
+    public ResponseEntity<StreamingResponseBody> exportReturnedBooks(
+            @RequestParam(name = "format", defaultValue = "CSV", required = false) ExportFormat format,
+            Authentication connectedUser) {
+        return attachment("returned-books", format, exportService.exportReturnedBooks(format, connectedUser));
+    }
+
+    private ResponseEntity<StreamingResponseBody> attachment(String name, ExportFormat format, StreamingResponseBody body) {
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(name + "." + format.getExtension())
+                .build();
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,7 @@
+package com.teguh.book.export;
+
+public interface ExportRow {
+
+    // CSV cells, in the order of the row type's header
+    Object[] values();
+}
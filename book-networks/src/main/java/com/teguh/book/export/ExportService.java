@@ -0,0 +1,116 @@
+package com.teguh.book.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teguh.book.book.BookRepository;
+import com.teguh.book.history.BookTransactionHistoryRepository;
+import com.teguh.book.security.AuthenticatedUser;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * Exports are written while the rows are read: a read-only transaction keeps
+ * a forward-only cursor open, rows are flat DTO projections (no entities in
+ * the persistence context, no cover images), and each one is written and
+ * forgotten. Memory stays constant whatever the size of the history.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    private final BookRepository bookRepository;
+    private final BookTransactionHistoryRepository transactionHistoryRepository;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public StreamingResponseBody exportOwnedBooks(ExportFormat format, Authentication connectedUser) {
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
+        return stream(format, BookExportRow.HEADER, () -> bookRepository.streamExportByOwnerId(user.id()));
+    }
+
+    public StreamingResponseBody exportBorrowedBooks(ExportFormat format, Authentication connectedUser) {
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
+        return stream(format, LoanExportRow.HEADER,
+                () -> transactionHistoryRepository.streamExportByBorrowerId(user.id()));
+    }
+
+    public StreamingResponseBody exportReturnedBooks(ExportFormat format, Authentication connectedUser) {
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
+        return stream(format, LoanExportRow.HEADER,
+                () -> transactionHistoryRepository.streamExportByOwnerId(user.id()));
+    }
+
+    private StreamingResponseBody stream(ExportFormat format, String[] header, Supplier<Stream<? extends ExportRow>> query) {
+        return outputStream -> readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<? extends ExportRow> rows = query.get()) {
+                write(format, header, rows, outputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void write(ExportFormat format, String[] header, Stream<? extends ExportRow> rows, OutputStream outputStream)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writeCsvLine(writer, header);
+        }
+        int written = 0;
+        Iterator<? extends ExportRow> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            ExportRow row = iterator.next();
+            if (format == ExportFormat.CSV) {
+                writeCsvLine(writer, row.values());
+            } else {
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.write('\n');
+            }
+            if (++written % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvCell(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    private String csvCell(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String cell = value.toString();
+        // Spreadsheets evaluate cells starting with these as formulas
+        if (!cell.isEmpty() && "=+-@".indexOf(cell.charAt(0)) >= 0 && !(value instanceof Number)) {
+            cell = "'" + cell;
+        }
+        if (cell.indexOf(',') >= 0 || cell.indexOf('"') >= 0 || cell.indexOf('\n') >= 0 || cell.indexOf('\r') >= 0) {
+            return '"' + cell.replace("\"", "\"\"") + '"';
+        }
+        return cell;
+    }
+}
@@ -0,0 +1,29 @@
+package com.teguh.book.export;
+
+import java.time.LocalDateTime;
+
+public record LoanExportRow(
+        Integer transactionId,
+        Integer bookId,
+        String title,
+        String authorName,
+        String isbn,
+        String borrower,
+        boolean returned,
+        boolean returnApproved,
+        LocalDateTime borrowedDate,
+        LocalDateTime lastModifiedDate) implements ExportRow {
+
+    static final String[] HEADER = {
+            "transactionId", "bookId", "title", "authorName", "isbn", "borrower",
+            "returned", "returnApproved", "borrowedDate", "lastModifiedDate"
+    };
+
+    @Override
+    public Object[] values() {
+        return new Object[] {
+                transactionId, bookId, title, authorName, isbn, borrower,
+                returned, returnApproved, borrowedDate, lastModifiedDate
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package com.teguh.book.feedback;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/*
+ * One row per reviewed book, kept in step with the feedback table by
+ * BookRatingSummaryRepository.increment. A rating counts in the star bucket
+ * of its ceiling, so 3.5 is a four-star rating.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+public class BookRatingSummary {
+    @Id
+    private Integer bookId;
+
+    private int totalCount;
+    private double ratingSum;
+    private int oneStar;
+    private int twoStar;
+    private int threeStar;
+    private int fourStar;
+    private int fiveStar;
+}
@@ -0,0 +1,37 @@
+package com.teguh.book.feedback;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface BookRatingSummaryRepository extends JpaRepository<BookRatingSummary, Integer> {
+
+    /*
+     * Counts one new feedback. The first feedback of a book creates the row
+     * from the feedback table itself (the new one included, hence the flush),
+     * which also picks up books reviewed before summaries existed; every later
+     * one is a single atomic increment of the existing row.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO book_rating_summary
+                (book_id, total_count, rating_sum, one_star, two_star, three_star, four_star, five_star)
+            SELECT :bookId, COUNT(feedback.rating), COALESCE(SUM(feedback.rating), 0),
+                COUNT(*) FILTER (WHERE CEIL(feedback.rating) <= 1),
+                COUNT(*) FILTER (WHERE CEIL(feedback.rating) = 2),
+                COUNT(*) FILTER (WHERE CEIL(feedback.rating) = 3),
+                COUNT(*) FILTER (WHERE CEIL(feedback.rating) = 4),
+                COUNT(*) FILTER (WHERE CEIL(feedback.rating) >= 5)
+            FROM feedback
+            WHERE feedback.book_id = :bookId
+            ON CONFLICT (book_id) DO UPDATE SET
+                total_count = book_rating_summary.total_count + 1,
+                rating_sum = book_rating_summary.rating_sum + :rating,
+                one_star = book_rating_summary.one_star + CASE WHEN :stars = 1 THEN 1 ELSE 0 END,
+                two_star = book_rating_summary.two_star + CASE WHEN :stars = 2 THEN 1 ELSE 0 END,
+                three_star = book_rating_summary.three_star + CASE WHEN :stars = 3 THEN 1 ELSE 0 END,
+                four_star = book_rating_summary.four_star + CASE WHEN :stars = 4 THEN 1 ELSE 0 END,
+                five_star = book_rating_summary.five_star + CASE WHEN :stars = 5 THEN 1 ELSE 0 END
+            """, nativeQuery = true)
+    void increment(Integer bookId, double rating, int stars);
+}
@@ -0,0 +1,22 @@
+package com.teguh.book.feedback;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookRatingSummaryResponse {
+    private Integer bookId;
+    private int total;
+    private double average;
+    // Star (1..5) -> number of feedbacks
+    private Map<Integer, Integer> histogram;
+}
@@ -1,5 +1,6 @@
 package com.teguh.book.feedback;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -9,8 +10,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.teguh.book.common.PageResponse;
+import com.teguh.book.sql.StatementBudget;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -21,8 +24,11 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 @Tag(name = "Feedback")
 public class FeedbackController {
+    private static final CacheControl REVALIDATE_PRIVATE = CacheControl.noCache().cachePrivate();
+
     private final FeedbackService service;
 
+    @StatementBudget(6)
     @PostMapping
     public ResponseEntity<Integer> saveFeedback(
             @Valid @RequestBody FeedbackRequest request,
@@ -31,12 +37,30 @@ public class FeedbackController {
         return ResponseEntity.ok(service.save(request, connectedUser));
     }
 
+    @StatementBudget(5)
     @GetMapping("/book/{book-id}")
     public ResponseEntity<PageResponse<FeedbackResponse>> findAllFeedbacksByBook(
             @PathVariable("book-id") Integer bookId,
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "10", required = false) int size,
-            Authentication connectedUser) {
-        return ResponseEntity.ok(service.findAllFeedbacksByBook(bookId, page, size, connectedUser));
+            Authentication connectedUser,
+            WebRequest webRequest) {
+        String eTag = service.findFeedbackPageETag(bookId, page, size, connectedUser);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(REVALIDATE_PRIVATE)
+                .body(service.findAllFeedbacksByBook(bookId, page, size, connectedUser));
+    }
+
+    @StatementBudget(3)
+    @GetMapping("/book/{book-id}/summary")
+    public ResponseEntity<BookRatingSummaryResponse> findRatingSummaryByBook(
+            @PathVariable("book-id") Integer bookId) {
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE_PRIVATE)
+                .body(service.findRatingSummaryByBook(bookId));
     }
 }
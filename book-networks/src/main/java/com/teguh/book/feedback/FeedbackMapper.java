@@ -1,5 +1,7 @@
 package com.teguh.book.feedback;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 
 import org.springframework.stereotype.Service;
@@ -33,4 +35,20 @@ public class FeedbackMapper {
                 .build();
     }
 
+    public BookRatingSummaryResponse toBookRatingSummaryResponse(BookRatingSummary summary) {
+        Map<Integer, Integer> histogram = new LinkedHashMap<>();
+        histogram.put(1, summary.getOneStar());
+        histogram.put(2, summary.getTwoStar());
+        histogram.put(3, summary.getThreeStar());
+        histogram.put(4, summary.getFourStar());
+        histogram.put(5, summary.getFiveStar());
+        double average = summary.getTotalCount() == 0 ? 0.0 : summary.getRatingSum() / summary.getTotalCount();
+        return BookRatingSummaryResponse
+                .builder()
+                .bookId(summary.getBookId())
+                .total(summary.getTotalCount())
+                .average(Math.round(average * 10.0) / 10.0)
+                .histogram(histogram)
+                .build();
+    }
 }
@@ -0,0 +1,12 @@
+package com.teguh.book.feedback;
+
+import java.time.LocalDateTime;
+
+import com.teguh.book.common.ETagUtils;
+
+public record FeedbackPageVersion(Long feedbackCount, LocalDateTime lastModifiedDate) {
+
+    public String toETag(Integer bookId, Integer userId, int page, int size) {
+        return ETagUtils.weakETag(bookId, userId, page, size, feedbackCount, lastModifiedDate);
+    }
+}
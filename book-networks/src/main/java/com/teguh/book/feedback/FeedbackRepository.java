@@ -14,4 +14,13 @@ public interface FeedbackRepository extends JpaRepository<Feedback, Integer> {
             """)
     Page<Feedback> findAllByBookId(Integer bookId, Pageable pageable);
 
+    @Query("""
+                SELECT new com.teguh.book.feedback.FeedbackPageVersion(
+                    COUNT(feedback.id), MAX(COALESCE(feedback.lastModifiedDate, feedback.createdDate)))
+                FROM Feedback feedback
+                WHERE feedback.book.id = :bookId
+            """)
+    FeedbackPageVersion findVersionByBookId(Integer bookId);
+
+    boolean existsByBookIdAndCreatedBy(Integer bookId, Integer userId);
 }
@@ -8,12 +8,17 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.teguh.book.book.Book;
 import com.teguh.book.book.BookRepository;
+import com.teguh.book.book.BookDetails;
+import com.teguh.book.cache.NearCache;
 import com.teguh.book.common.PageResponse;
+import com.teguh.book.event.DomainEventBus;
+import com.teguh.book.event.FeedbackAdded;
 import com.teguh.book.exception.OperationNotPermittedException;
-import com.teguh.book.user.User;
+import com.teguh.book.security.AuthenticatedUser;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -24,7 +29,11 @@ public class FeedbackService {
     private final BookRepository bookRepository;
     private final FeedbackMapper feedbackMapper;
     private final FeedbackRepository feedbackRepository;
+    private final BookRatingSummaryRepository ratingSummaryRepository;
+    private final DomainEventBus domainEventBus;
+    private final NearCache<BookDetails> bookCache;
 
+    @Transactional
     public Integer save(FeedbackRequest request, Authentication connectedUser) {
         Book book = bookRepository
                 .findById(request.bookId())
@@ -35,29 +44,60 @@ public class FeedbackService {
                     "You cannot give a feedback for an archived or not shareable books");
         }
 
-        User user = ((User) connectedUser.getPrincipal());
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
 
-        if (Objects.equals(book.getOwner().getId(), user.getId())) {
+        if (Objects.equals(book.getOwner().getId(), user.id())) {
             throw new OperationNotPermittedException("You cannot give a feedback to your own book");
         }
 
+        if (feedbackRepository.existsByBookIdAndCreatedBy(book.getId(), user.id())) {
+            throw new OperationNotPermittedException("You have already given a feedback for this book");
+        }
+
         Feedback feedback = feedbackMapper.toFeedback(request);
-        return feedbackRepository.save(feedback).getId();
+        feedback.setBook(book);
+        Integer feedbackId = feedbackRepository.save(feedback).getId();
+        if (feedback.getRating() != null) {
+            int stars = (int) Math.min(5, Math.max(1, Math.ceil(feedback.getRating())));
+            ratingSummaryRepository.increment(book.getId(), feedback.getRating(), stars);
+        }
+        // The book's rate changed
+        bookCache.invalidate(book.getId());
+        domainEventBus.publish(new FeedbackAdded(feedbackId, book.getId(), user.id(), feedback.getRating()));
+        return feedbackId;
     }
 
+    @Transactional(readOnly = true)
     public PageResponse<FeedbackResponse> findAllFeedbacksByBook(Integer bookId, int page, int size,
             Authentication connectedUser) {
         Pageable pageable = PageRequest.of(page, size);
-        User user = ((User) connectedUser.getPrincipal());
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
         Page<Feedback> feedbacks = feedbackRepository.findAllByBookId(bookId, pageable);
         List<FeedbackResponse> feedbackResponse = feedbacks
                 .stream()
-                .map(f -> feedbackMapper.toFeedbackResponse(f, user.getId()))
+                .map(f -> feedbackMapper.toFeedbackResponse(f, user.id()))
                 .toList();
 
         return pageResponse(feedbackResponse, feedbacks);
     }
 
+    @Transactional(readOnly = true)
+    public String findFeedbackPageETag(Integer bookId, int page, int size, Authentication connectedUser) {
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
+        return feedbackRepository.findVersionByBookId(bookId).toETag(bookId, user.id(), page, size);
+    }
+
+    @Transactional(readOnly = true)
+    public BookRatingSummaryResponse findRatingSummaryByBook(Integer bookId) {
+        BookRatingSummary summary = ratingSummaryRepository.findById(bookId).orElseGet(() -> {
+            if (!bookRepository.existsById(bookId)) {
+                throw new EntityNotFoundException("No book found with ID::" + bookId);
+            }
+            return BookRatingSummary.builder().bookId(bookId).build();
+        });
+        return feedbackMapper.toBookRatingSummaryResponse(summary);
+    }
+
     private <T, P> PageResponse<T> pageResponse(List<T> content, Page<P> page) {
         return new PageResponse<T>(
                 content,
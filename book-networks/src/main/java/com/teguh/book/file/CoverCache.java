@@ -0,0 +1,100 @@
+package com.teguh.book.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Cover files memory-mapped read-only, so their bytes live in the page cache
+ * instead of the heap, kept in an LRU bounded by the total mapped size. An
+ * upload writes a new file and points the book at it, a cover file is never
+ * rewritten, so a mapping stays valid for as long as it is cached. An evicted
+ * mapping is released once its buffer is collected.
+ */
+@Component
+@Slf4j
+public class CoverCache {
+    private final long maxBytes;
+    private final Map<String, MappedByteBuffer> covers = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    private final Counter hits;
+    private final Counter misses;
+
+    public CoverCache(
+            @Value("${application.file.cover-cache.max-size:256MB}") DataSize maxSize,
+            MeterRegistry meterRegistry) {
+        this.maxBytes = maxSize.toBytes();
+        this.hits = meterRegistry.counter("cover_cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("cover_cache.requests", "result", "miss");
+        Gauge.builder("cover_cache.bytes", this, CoverCache::cachedBytes).register(meterRegistry);
+    }
+
+    /*
+     * A read-only view of the cover with its own position, or null when there
+     * is no cover or its file is gone.
+     */
+    public ByteBuffer find(String coverPath) {
+        if (StringUtils.isBlank(coverPath)) {
+            return null;
+        }
+        MappedByteBuffer cover;
+        synchronized (this) {
+            cover = covers.get(coverPath);
+        }
+        if (cover != null) {
+            hits.increment();
+            return cover.asReadOnlyBuffer();
+        }
+
+        misses.increment();
+        cover = map(coverPath);
+        if (cover == null) {
+            return null;
+        }
+        put(coverPath, cover);
+        return cover.asReadOnlyBuffer();
+    }
+
+    private synchronized long cachedBytes() {
+        return cachedBytes;
+    }
+
+    private synchronized void put(String coverPath, MappedByteBuffer cover) {
+        // Larger than the whole cache: served, never kept
+        if (cover.capacity() > maxBytes || covers.containsKey(coverPath)) {
+            return;
+        }
+        covers.put(coverPath, cover);
+        cachedBytes += cover.capacity();
+        Iterator<MappedByteBuffer> eldest = covers.values().iterator();
+        while (cachedBytes > maxBytes && eldest.hasNext()) {
+            cachedBytes -= eldest.next().capacity();
+            eldest.remove();
+        }
+    }
+
+    private MappedByteBuffer map(String coverPath) {
+        try (FileChannel channel = FileChannel.open(Path.of(coverPath), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            log.warn("No file found in the path {}", coverPath);
+            return null;
+        }
+    }
+}
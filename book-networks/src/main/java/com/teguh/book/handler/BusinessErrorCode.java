@@ -10,7 +10,13 @@ public enum BusinessErrorCode {
     NEW_PASSWORD_DOES_NOT_MATCH(301, HttpStatus.BAD_REQUEST, "New password does not match"),
     ACCOUNT_LOCKED(302, HttpStatus.FORBIDDEN, "User account is locked"),
     ACCOUNT_DISABLED(303, HttpStatus.FORBIDDEN, "User account is disabled"),
-    BAD_CREDENTIALS(304, HttpStatus.FORBIDDEN, "Email and / or password is incorrect");
+    BAD_CREDENTIALS(304, HttpStatus.FORBIDDEN, "Email and / or password is incorrect"),
+    TOO_MANY_REQUESTS(305, HttpStatus.TOO_MANY_REQUESTS, "Too many requests"),
+    IDEMPOTENCY_KEY_IN_USE(306, HttpStatus.CONFLICT, "Request already in progress"),
+    INVALID_IDEMPOTENCY_KEY(307, HttpStatus.BAD_REQUEST, "Invalid idempotency key"),
+    DUPLICATE_RESOURCE(308, HttpStatus.CONFLICT, "Resource already exists"),
+    IDEMPOTENCY_KEY_REUSED(309, HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency key reused with a different request"),
+    REQUEST_BODY_TOO_LARGE(310, HttpStatus.PAYLOAD_TOO_LARGE, "Request body too large");
 
     @Getter
     private final int code;
@@ -3,10 +3,13 @@ package com.teguh.book.handler;
 import static com.teguh.book.handler.BusinessErrorCode.ACCOUNT_DISABLED;
 import static com.teguh.book.handler.BusinessErrorCode.ACCOUNT_LOCKED;
 import static com.teguh.book.handler.BusinessErrorCode.BAD_CREDENTIALS;
+import static com.teguh.book.handler.BusinessErrorCode.DUPLICATE_RESOURCE;
 
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -16,6 +19,7 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
 import com.teguh.book.exception.OperationNotPermittedException;
 
@@ -24,6 +28,7 @@ import jakarta.persistence.EntityExistsException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    private static final String UNIQUE_VIOLATION = "23505";
 
     @ExceptionHandler(LockedException.class)
     public ResponseEntity<ExceptionResponse> handleException(LockedException exception) {
@@ -95,6 +100,14 @@ public class GlobalExceptionHandler {
                                 .build());
     }
 
+    // Long-lived SSE streams end this way; the stream is already committed and the client reconnects
+    @ExceptionHandler(AsyncRequestTimeoutException.class)
+    public ResponseEntity<Void> handleException(AsyncRequestTimeoutException exception) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .build();
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ExceptionResponse> handleException(Exception exception) {
         return ResponseEntity
@@ -129,4 +142,30 @@ public class GlobalExceptionHandler {
                                 .error(exception.getMessage())
                                 .build());
     }
+
+    // Unique constraints catch what the service checks miss under concurrency; other violations are bugs
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ExceptionResponse> handleException(DataIntegrityViolationException exception) {
+        if (!isUniqueViolation(exception)) {
+            return handleException((Exception) exception);
+        }
+        return ResponseEntity
+                .status(DUPLICATE_RESOURCE.getHttpStatus())
+                .body(
+                        ExceptionResponse
+                                .builder()
+                                .businessErrorCode(DUPLICATE_RESOURCE.getCode())
+                                .businessErrorDescription(DUPLICATE_RESOURCE.getDescription())
+                                .error("The request conflicts with existing data")
+                                .build());
+    }
+
+    private static boolean isUniqueViolation(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && UNIQUE_VIOLATION.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -1,11 +1,19 @@
 package com.teguh.book.history;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import com.teguh.book.export.LoanExportRow;
+
+import jakarta.persistence.QueryHint;
 
 public interface BookTransactionHistoryRepository extends JpaRepository<BookTransactionHistory, Integer> {
 
@@ -51,6 +59,49 @@ public interface BookTransactionHistoryRepository extends JpaRepository<BookTran
             AND transaction.returned = true
             AND transaction.returnApproved = false
             """)
-    Optional<BookTransactionHistory> findByBookIdAndOwnerId(Integer bookId, Integer id);
+    Optional<BookTransactionHistory> findByBookIdAndOwnerId(Integer bookId, Integer userId);
+
+    @Query(value = """
+            SELECT history.book_id
+            FROM book_transaction_history history
+            WHERE history.user_id = :userId
+            GROUP BY history.book_id
+            ORDER BY MAX(history.id) DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Integer> findRecentlyBorrowedBookIds(Integer userId, int limit);
+
+    @Query("""
+            SELECT new com.teguh.book.export.LoanExportRow(
+                history.id, book.id, book.title, book.authorName, book.isbn,
+                CONCAT(borrower.firstname, ' ', borrower.lastname),
+                history.returned, history.returnApproved, history.createdDate, history.lastModifiedDate)
+            FROM BookTransactionHistory history
+            JOIN history.book book
+            JOIN history.user borrower
+            WHERE borrower.id = :userId
+            ORDER BY history.id
+            """)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<LoanExportRow> streamExportByBorrowerId(Integer userId);
 
-}
\ No newline at end of file
+    @Query("""
+            SELECT new com.teguh.book.export.LoanExportRow(
+                history.id, book.id, book.title, book.authorName, book.isbn,
+                CONCAT(borrower.firstname, ' ', borrower.lastname),
+                history.returned, history.returnApproved, history.createdDate, history.lastModifiedDate)
+            FROM BookTransactionHistory history
+            JOIN history.book book
+            JOIN history.user borrower
+            WHERE book.owner.id = :userId
+            ORDER BY history.id
+            """)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<LoanExportRow> streamExportByOwnerId(Integer userId);
+}
@@ -0,0 +1,45 @@
+package com.teguh.book.loan;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.teguh.book.security.AuthenticatedUser;
+import com.teguh.book.security.StreamTicketStore;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("loan-events")
+@RequiredArgsConstructor
+@Tag(name = "Loan events")
+public class LoanEventController {
+    private final LoanEventStream loanEventStream;
+    private final StreamTicketStore streamTicketStore;
+
+    /*
+     * A one-time ticket for opening the stream from a browser EventSource,
+     * which cannot send the Authorization header: GET loan-events?ticket=...
+     */
+    @PostMapping("/tickets")
+    public ResponseEntity<StreamTicketResponse> issueTicket(Authentication connectedUser) {
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
+        return ResponseEntity.ok(new StreamTicketResponse(
+                streamTicketStore.issue(user), streamTicketStore.ttl().toSeconds()));
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId,
+            Authentication connectedUser) {
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
+        return loanEventStream.subscribe(user.id(), lastEventId);
+    }
+}
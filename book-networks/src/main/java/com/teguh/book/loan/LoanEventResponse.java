@@ -0,0 +1,8 @@
+package com.teguh.book.loan;
+
+public record LoanEventResponse(
+        LoanEventType type,
+        Integer bookId,
+        String bookTitle,
+        Integer transactionId) {
+}
@@ -0,0 +1,260 @@
+package com.teguh.book.loan;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import com.teguh.book.event.DomainEvent;
+import com.teguh.book.event.DomainEventConsumer;
+import com.teguh.book.event.LoanReturned;
+import com.teguh.book.event.LoanStarted;
+import com.teguh.book.event.ReturnApproved;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Per-user SSE fan-out for loan state changes. Emitters are async servlet
+ * requests, so an idle connection holds no thread; sends happen on a small
+ * dedicated pool. Each user keeps the last few events so a reconnecting client
+ * can resume from its Last-Event-ID, and each connection has a bounded queue:
+ * a client that falls behind is disconnected and catches up through resume.
+ * A send is a blocking socket write, so one that outlasts sendTimeout
+ * completes its emitter and the pool gets a thread in place of the stuck one
+ * until the write gives up.
+ */
+@Service
+@Slf4j
+public class LoanEventStream implements DomainEventConsumer {
+    private static final long RECONNECT_TIME_MILLIS = 3000;
+
+    private final Map<Integer, UserChannel> channels = new ConcurrentHashMap<>();
+    // Seeded from the clock so ids keep increasing across restarts
+    private final AtomicLong eventSequence = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final ThreadPoolExecutor sender;
+    private final ScheduledThreadPoolExecutor sendWatchdog;
+    private final long sendTimeout;
+    private final long emitterTimeout;
+    private final long channelRetention;
+    private final int replaySize;
+    private final int connectionBufferSize;
+
+    public LoanEventStream(
+            @Value("${application.loan-events.sender-threads:2}") int senderThreads,
+            @Value("${application.loan-events.emitter-timeout:1800000}") long emitterTimeout,
+            @Value("${application.loan-events.channel-retention:300000}") long channelRetention,
+            @Value("${application.loan-events.replay-size:50}") int replaySize,
+            @Value("${application.loan-events.connection-buffer-size:32}") int connectionBufferSize,
+            @Value("${application.loan-events.send-timeout:10000}") long sendTimeout) {
+        // Unbounded maximum: only stuck sends grow the pool, by raising the core size
+        this.sender = new ThreadPoolExecutor(senderThreads, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("loan-events-"));
+        this.sendWatchdog = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("loan-events-watchdog-"));
+        this.sendWatchdog.setRemoveOnCancelPolicy(true);
+        this.sendTimeout = sendTimeout;
+        this.emitterTimeout = emitterTimeout;
+        this.channelRetention = channelRetention;
+        this.replaySize = replaySize;
+        this.connectionBufferSize = connectionBufferSize;
+    }
+
+    public SseEmitter subscribe(Integer userId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout);
+        channels.compute(userId, (id, channel) -> {
+            UserChannel userChannel = channel == null ? new UserChannel() : channel;
+            Subscription subscription = new Subscription(userChannel, emitter);
+            emitter.onCompletion(() -> userChannel.remove(subscription));
+            emitter.onError(e -> userChannel.remove(subscription));
+            userChannel.add(subscription, lastEventId);
+            return userChannel;
+        });
+        return emitter;
+    }
+
+    @Override
+    public String name() {
+        return "loan-event-stream";
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof LoanStarted loan) {
+                deliver(loan.ownerId(), new LoanEventResponse(
+                        LoanEventType.BORROWED, loan.bookId(), loan.bookTitle(), loan.transactionId()));
+            } else if (event instanceof LoanReturned loan) {
+                deliver(loan.ownerId(), new LoanEventResponse(
+                        LoanEventType.RETURNED, loan.bookId(), loan.bookTitle(), loan.transactionId()));
+            } else if (event instanceof ReturnApproved loan) {
+                deliver(loan.borrowerId(), new LoanEventResponse(
+                        LoanEventType.RETURN_APPROVED, loan.bookId(), loan.bookTitle(), loan.transactionId()));
+            }
+        }
+    }
+
+    private void deliver(Integer recipientId, LoanEventResponse payload) {
+        // Nobody listening recently: there is no one to deliver or replay to
+        UserChannel channel = channels.get(recipientId);
+        if (channel != null) {
+            channel.publish(new StreamedEvent(eventSequence.incrementAndGet(), payload));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.loan-events.heartbeat-interval:15000}")
+    void sendHeartbeats() {
+        long now = System.currentTimeMillis();
+        channels.keySet().forEach(userId -> channels.computeIfPresent(
+                userId, (id, channel) -> channel.isIdle(now) ? null : channel));
+        channels.values().forEach(UserChannel::heartbeat);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sendWatchdog.shutdownNow();
+        sender.shutdownNow();
+    }
+
+    private synchronized void resizeSenders(int delta) {
+        sender.setCorePoolSize(sender.getCorePoolSize() + delta);
+    }
+
+    private record StreamedEvent(long id, LoanEventResponse payload) {
+
+        SseEventBuilder toSse() {
+            return SseEmitter.event()
+                    .id(String.valueOf(id))
+                    .name("loan")
+                    .data(payload);
+        }
+    }
+
+    private class UserChannel {
+        private final Deque<StreamedEvent> recentEvents = new ArrayDeque<>();
+        private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+        private volatile long lastActivity = System.currentTimeMillis();
+
+        synchronized void add(Subscription subscription, Long lastEventId) {
+            subscription.enqueue(SseEmitter.event().reconnectTime(RECONNECT_TIME_MILLIS).comment("connected"));
+            if (lastEventId != null) {
+                recentEvents.stream()
+                        .filter(event -> event.id() > lastEventId)
+                        .forEach(event -> subscription.enqueue(event.toSse()));
+            }
+            subscriptions.add(subscription);
+            lastActivity = System.currentTimeMillis();
+        }
+
+        synchronized void publish(StreamedEvent event) {
+            recentEvents.addLast(event);
+            if (recentEvents.size() > replaySize) {
+                recentEvents.removeFirst();
+            }
+            subscriptions.forEach(subscription -> subscription.enqueue(event.toSse()));
+        }
+
+        void heartbeat() {
+            subscriptions.forEach(subscription -> subscription.enqueue(SseEmitter.event().comment("heartbeat")));
+        }
+
+        void remove(Subscription subscription) {
+            subscriptions.remove(subscription);
+            lastActivity = System.currentTimeMillis();
+        }
+
+        boolean isIdle(long now) {
+            return subscriptions.isEmpty() && now - lastActivity > channelRetention;
+        }
+    }
+
+    private class Subscription {
+        private final UserChannel channel;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEventBuilder> pending = new ArrayBlockingQueue<>(connectionBufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscription(UserChannel channel, SseEmitter emitter) {
+            this.channel = channel;
+            this.emitter = emitter;
+        }
+
+        void enqueue(SseEventBuilder event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!pending.offer(event)) {
+                log.debug("Loan event buffer full, closing slow connection");
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEventBuilder event;
+                while (!closed.get() && (event = pending.poll()) != null) {
+                    send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the container reports it through onError/onCompletion
+                channel.remove(this);
+                pending.clear();
+            } finally {
+                draining.set(false);
+            }
+            if (!closed.get() && !pending.isEmpty() && draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void send(SseEventBuilder event) throws IOException {
+            ScheduledFuture<?> timeout = sendWatchdog.schedule(this::timedOut, sendTimeout, TimeUnit.MILLISECONDS);
+            try {
+                emitter.send(event);
+            } finally {
+                // Already fired: this thread was replaced while it was stuck, hand its slot back
+                if (!timeout.cancel(false)) {
+                    resizeSenders(-1);
+                }
+            }
+        }
+
+        private void timedOut() {
+            log.debug("Loan event send timed out, closing the connection");
+            resizeSenders(1);
+            close();
+        }
+
+        // Completing does not wait for a send in progress; the client reconnects and resumes
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                channel.remove(this);
+                pending.clear();
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.teguh.book.loan;
+
+public enum LoanEventType {
+    BORROWED,
+    RETURNED,
+    RETURN_APPROVED
+}
@@ -0,0 +1,6 @@
+package com.teguh.book.loan;
+
+public record StreamTicketResponse(
+        String ticket,
+        long expiresIn) {
+}
@@ -0,0 +1,32 @@
+package com.teguh.book.recommendation;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/*
+ * One precomputed "also borrowed" entry: plain ids and counts, no entity
+ * graph. slot orders the top-K list of a book, 0 being the strongest.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@IdClass(BookRecommendationId.class)
+public class BookRecommendation {
+    @Id
+    private Integer bookId;
+
+    @Id
+    private Integer slot;
+
+    private Integer recommendedBookId;
+    private Integer score;
+}
@@ -0,0 +1,17 @@
+package com.teguh.book.recommendation;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookRecommendationId implements Serializable {
+    private Integer bookId;
+    private Integer slot;
+}
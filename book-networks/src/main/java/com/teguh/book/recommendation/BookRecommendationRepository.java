@@ -0,0 +1,92 @@
+package com.teguh.book.recommendation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
+
+public interface BookRecommendationRepository extends JpaRepository<BookRecommendation, BookRecommendationId> {
+
+    @Query("""
+            SELECT recommendation
+            FROM BookRecommendation recommendation
+            WHERE recommendation.bookId IN :bookIds
+            ORDER BY recommendation.score DESC, recommendation.slot
+            """)
+    List<BookRecommendation> findAllByBookIds(Collection<Integer> bookIds);
+
+    // Held until the caller's transaction ends, so one instance at a time refreshes
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('recommendations'))", nativeQuery = true)
+    boolean tryLockRefresh();
+
+    @Query(value = "SELECT watermark FROM job_watermark WHERE job_name = 'recommendations'", nativeQuery = true)
+    int findCompletedBatch();
+
+    @Modifying
+    @Query(value = "UPDATE job_watermark SET watermark = :batch WHERE job_name = 'recommendations'", nativeQuery = true)
+    int saveCompletedBatch(int batch);
+
+    /*
+     * Assigns the loans no refresh has claimed yet to the batch, committed
+     * right away so their row locks are not held while the batch is folded.
+     * A loan that commits after this stays unclaimed for the next refresh,
+     * whatever its id.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query(value = """
+            UPDATE book_transaction_history
+            SET recommendation_batch = :batch
+            WHERE recommendation_batch IS NULL
+            """, nativeQuery = true)
+    int claimHistory(int batch);
+
+    /*
+     * Books borrowed by anyone with a loan in the batch: their co-borrow
+     * counts are the only ones that can have changed.
+     */
+    @Query(value = """
+            SELECT DISTINCT history.book_id
+            FROM book_transaction_history history
+            WHERE history.user_id IN (
+                SELECT fresh.user_id FROM book_transaction_history fresh
+                WHERE fresh.recommendation_batch = :batch
+            )
+            """, nativeQuery = true)
+    List<Integer> findAffectedBookIds(int batch);
+
+    /*
+     * Every distinct (user, book) pair of the readers of the given books,
+     * grouped by user so that one reader's shelf can be folded at a time.
+     */
+    @Query(value = """
+            SELECT DISTINCT pair.user_id AS userId, pair.book_id AS bookId
+            FROM book_transaction_history pair
+            WHERE pair.user_id IN (
+                SELECT reader.user_id FROM book_transaction_history reader
+                WHERE reader.book_id IN (:bookIds)
+            )
+            ORDER BY pair.user_id
+            """, nativeQuery = true)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<UserBookPair> streamReaderPairs(Collection<Integer> bookIds);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM book_recommendation
+            WHERE book_id IN (:bookIds)
+            """, nativeQuery = true)
+    int deleteByBookIds(Collection<Integer> bookIds);
+}
@@ -0,0 +1,94 @@
+package com.teguh.book.recommendation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.RequiredArgsConstructor;
+
+/*
+ * Folds the borrow history into "readers who borrowed this also borrowed"
+ * counts for a chunk of books. Pairs are streamed through a server-side
+ * cursor ordered by reader, so only one reader's shelf plus one bounded
+ * counter per book of the chunk is ever held in memory, however many history
+ * rows there are.
+ */
+@Component
+@RequiredArgsConstructor
+public class CoBorrowCalculator {
+    private final BookRecommendationRepository recommendationRepository;
+
+    @Value("${application.recommendation.top-k:10}")
+    private int topK;
+
+    @Value("${application.recommendation.max-books-per-reader:200}")
+    private int maxBooksPerReader;
+
+    @Value("${application.recommendation.max-neighbours:1000}")
+    private int maxNeighbours;
+
+    @Transactional(readOnly = true)
+    public List<BookRecommendation> calculate(List<Integer> bookIds) {
+        Map<Integer, IntIntCounter> counters = new HashMap<>(bookIds.size() * 2);
+        for (Integer bookId : bookIds) {
+            counters.put(bookId, new IntIntCounter(maxNeighbours));
+        }
+
+        int[] shelf = new int[maxBooksPerReader];
+        int shelfSize = 0;
+        int currentUserId = 0;
+        try (Stream<UserBookPair> pairs = recommendationRepository.streamReaderPairs(bookIds)) {
+            for (UserBookPair pair : (Iterable<UserBookPair>) pairs::iterator) {
+                if (pair.getUserId() != currentUserId) {
+                    fold(counters, shelf, shelfSize);
+                    currentUserId = pair.getUserId();
+                    shelfSize = 0;
+                }
+                // Very heavy readers add little signal but quadratic work
+                if (shelfSize < shelf.length) {
+                    shelf[shelfSize++] = pair.getBookId();
+                }
+            }
+        }
+        fold(counters, shelf, shelfSize);
+
+        List<BookRecommendation> recommendations = new ArrayList<>(counters.size() * topK);
+        counters.forEach((bookId, counter) -> {
+            int[][] top = counter.top(topK);
+            for (int slot = 0; slot < top.length; slot++) {
+                recommendations.add(BookRecommendation.builder()
+                        .bookId(bookId)
+                        .slot(slot)
+                        .recommendedBookId(top[slot][0])
+                        .score(top[slot][1])
+                        .build());
+            }
+        });
+        return recommendations;
+    }
+
+    private void fold(Map<Integer, IntIntCounter> counters, int[] shelf, int size) {
+        if (size < 2) {
+            return;
+        }
+        int[] books = Arrays.copyOf(shelf, size);
+        for (int i = 0; i < size; i++) {
+            IntIntCounter counter = counters.get(books[i]);
+            if (counter == null) {
+                continue;
+            }
+            for (int j = 0; j < size; j++) {
+                if (i != j) {
+                    counter.increment(books[j]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.teguh.book.recommendation;
+
+import java.util.Arrays;
+
+/*
+ * Open-addressing int -> int counter used while folding co-borrow pairs.
+ * Keys are entity ids, so 0 marks a free slot and no boxing is needed.
+ * Capacity is bounded: once more than maxKeys keys are tracked only the
+ * strongest half is kept, which keeps memory per book fixed at the cost of
+ * approximate counts for long-tail neighbours that never make the top-K.
+ */
+class IntIntCounter {
+    private final int maxKeys;
+    private int[] keys;
+    private int[] counts;
+    private int size;
+
+    IntIntCounter(int maxKeys) {
+        this.maxKeys = maxKeys;
+        this.keys = new int[8];
+        this.counts = new int[8];
+    }
+
+    void increment(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                counts[slot]++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = 1;
+        size++;
+        if (size > maxKeys) {
+            prune();
+        } else if (size * 4 >= keys.length * 3) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /*
+     * Returns {key, count} pairs for the k highest counts, strongest first,
+     * ties broken by the smaller key so that runs are deterministic.
+     */
+    int[][] top(int k) {
+        int[][] entries = entries();
+        Arrays.sort(entries, (a, b) -> a[1] != b[1] ? Integer.compare(b[1], a[1]) : Integer.compare(a[0], b[0]));
+        return entries.length <= k ? entries : Arrays.copyOf(entries, k);
+    }
+
+    private void prune() {
+        int[][] kept = top(maxKeys / 2);
+        Arrays.fill(keys, 0);
+        size = 0;
+        for (int[] entry : kept) {
+            put(entry[0], entry[1]);
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[capacity];
+        counts = new int[capacity];
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != 0) {
+                put(oldKeys[slot], oldCounts[slot]);
+            }
+        }
+    }
+
+    private void put(int key, int count) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = count;
+        size++;
+    }
+
+    private int[][] entries() {
+        int[][] entries = new int[size][];
+        int i = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                entries[i++] = new int[] { keys[slot], counts[slot] };
+            }
+        }
+        return entries;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,42 @@
+package com.teguh.book.recommendation;
+
+import java.util.List;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.teguh.book.book.BookResponse;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("recommendations")
+@RequiredArgsConstructor
+@Tag(name = "Recommendation")
+public class RecommendationController {
+    private static final CacheControl REVALIDATE_PRIVATE = CacheControl.noCache().cachePrivate();
+
+    private final RecommendationService recommendationService;
+
+    @GetMapping("/book/{book-id}")
+    public ResponseEntity<List<BookResponse>> findByBook(
+            @PathVariable("book-id") Integer bookId,
+            Authentication connectedUser) {
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE_PRIVATE)
+                .body(recommendationService.findByBook(bookId, connectedUser));
+    }
+
+    @GetMapping("/user")
+    public ResponseEntity<List<BookResponse>> findByUser(Authentication connectedUser) {
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE_PRIVATE)
+                .body(recommendationService.findByUser(connectedUser));
+    }
+}
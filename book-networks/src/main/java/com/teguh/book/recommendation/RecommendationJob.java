@@ -0,0 +1,64 @@
+package com.teguh.book.recommendation;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Incremental refresh of the precomputed recommendations. Each run claims the
+ * loans no run has folded in yet as the next batch and only recomputes the
+ * books whose co-borrow counts those loans can have changed. Claiming by
+ * batch rather than by id range follows commit order: a loan committed late,
+ * with an id below ones already folded, is simply claimed by the next run.
+ * The recommendations and the completed batch commit together, and a batch
+ * whose run failed is claimed again by the next one. An advisory lock keeps
+ * the other instances out while a run is in progress. The affected books are
+ * recomputed and written a chunk at a time, so a run over the whole history
+ * (the first one) holds no more than one chunk's counters and rows.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RecommendationJob {
+    private final BookRecommendationRepository recommendationRepository;
+    private final CoBorrowCalculator coBorrowCalculator;
+    private final RecommendationService recommendationService;
+
+    @Value("${application.recommendation.chunk-size:1000}")
+    private int chunkSize;
+
+    @Scheduled(initialDelayString = "${application.recommendation.initial-delay:1m}",
+            fixedDelayString = "${application.recommendation.interval:15m}")
+    @Transactional
+    public void refresh() {
+        if (!recommendationRepository.tryLockRefresh()) {
+            log.debug("Recommendations are being refreshed by another instance");
+            return;
+        }
+        int batch = recommendationRepository.findCompletedBatch() + 1;
+        recommendationRepository.claimHistory(batch);
+        List<Integer> affectedBookIds = recommendationRepository.findAffectedBookIds(batch);
+        if (affectedBookIds.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int rows = 0;
+        for (int from = 0; from < affectedBookIds.size(); from += chunkSize) {
+            List<Integer> chunk = affectedBookIds.subList(from, Math.min(from + chunkSize, affectedBookIds.size()));
+            List<BookRecommendation> recommendations = coBorrowCalculator.calculate(chunk);
+            recommendationService.replace(chunk, recommendations);
+            rows += recommendations.size();
+        }
+        recommendationRepository.saveCompletedBatch(batch);
+
+        log.info("Refreshed recommendations of {} books ({} rows) for history batch {} in {} ms",
+                affectedBookIds.size(), rows, batch, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,103 @@
+package com.teguh.book.recommendation;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.teguh.book.book.Book;
+import com.teguh.book.book.BookMapper;
+import com.teguh.book.book.BookRepository;
+import com.teguh.book.book.BookResponse;
+import com.teguh.book.history.BookTransactionHistoryRepository;
+import com.teguh.book.security.AuthenticatedUser;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class RecommendationService {
+    private static final String INSERT_RECOMMENDATION = """
+            INSERT INTO book_recommendation (book_id, slot, recommended_book_id, score)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    private final BookRecommendationRepository recommendationRepository;
+    private final BookRepository bookRepository;
+    private final BookTransactionHistoryRepository transactionHistoryRepository;
+    private final BookMapper bookMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${application.recommendation.top-k:10}")
+    private int topK;
+
+    @Value("${application.recommendation.write-batch-size:500}")
+    private int writeBatchSize;
+
+    @Transactional
+    public void replace(List<Integer> bookIds, List<BookRecommendation> recommendations) {
+        for (int from = 0; from < bookIds.size(); from += writeBatchSize) {
+            recommendationRepository.deleteByBookIds(bookIds.subList(from, Math.min(from + writeBatchSize, bookIds.size())));
+        }
+        jdbcTemplate.batchUpdate(INSERT_RECOMMENDATION, recommendations, writeBatchSize, (ps, recommendation) -> {
+            ps.setInt(1, recommendation.getBookId());
+            ps.setInt(2, recommendation.getSlot());
+            ps.setInt(3, recommendation.getRecommendedBookId());
+            ps.setInt(4, recommendation.getScore());
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public List<BookResponse> findByBook(Integer bookId, Authentication connectedUser) {
+        if (!bookRepository.existsById(bookId)) {
+            throw new EntityNotFoundException("No book found with ID::" + bookId);
+        }
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
+        return toBookResponses(recommendationRepository.findAllByBookIds(List.of(bookId)), Set.of(bookId), user);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BookResponse> findByUser(Authentication connectedUser) {
+        AuthenticatedUser user = (AuthenticatedUser) connectedUser.getPrincipal();
+        Set<Integer> borrowed = new LinkedHashSet<>(
+                transactionHistoryRepository.findRecentlyBorrowedBookIds(user.id(), topK));
+        if (borrowed.isEmpty()) {
+            return List.of();
+        }
+        return toBookResponses(recommendationRepository.findAllByBookIds(borrowed), borrowed, user);
+    }
+
+    /*
+     * Merges the precomputed lists (already ordered by score), skips what the
+     * reader already has, and keeps the first topK that are still displayable.
+     */
+    private List<BookResponse> toBookResponses(List<BookRecommendation> recommendations, Set<Integer> exclude, AuthenticatedUser user) {
+        Set<Integer> candidates = new LinkedHashSet<>();
+        for (BookRecommendation recommendation : recommendations) {
+            if (!exclude.contains(recommendation.getRecommendedBookId())) {
+                candidates.add(recommendation.getRecommendedBookId());
+            }
+        }
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, Book> books = bookRepository.findAllDisplayableBooksByIds(candidates, user.id()).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return candidates.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .limit(topK)
+                .map(bookMapper::toBookResponse)
+                .toList();
+    }
+}
@@ -0,0 +1,7 @@
+package com.teguh.book.recommendation;
+
+public interface UserBookPair {
+    Integer getUserId();
+
+    Integer getBookId();
+}
@@ -0,0 +1,30 @@
+package com.teguh.book.security;
+
+import java.security.Principal;
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import com.teguh.book.user.User;
+
+/*
+ * The connected user as requests see it, rebuilt from the signed claims of the
+ * access token: no entity, no roles join, no lazy collections. Services that
+ * need the User row for a relation take userRepository.getReferenceById(id()).
+ */
+public record AuthenticatedUser(
+        Integer id,
+        String email,
+        String fullName,
+        List<GrantedAuthority> authorities) implements Principal {
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.fullName(), List.copyOf(user.getAuthorities()));
+    }
+
+    // Authentication.getName(), which the rate limiter and idempotency keys use
+    @Override
+    public String getName() {
+        return email;
+    }
+}
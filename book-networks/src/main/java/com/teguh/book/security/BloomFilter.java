@@ -0,0 +1,57 @@
+package com.teguh.book.security;
+
+import java.util.UUID;
+
+/*
+ * Fixed-size Bloom filter of session ids. A negative answer is exact, a
+ * positive one is wrong at about the false positive rate it was sized for.
+ * Not thread-safe while filling; publish it once it is complete.
+ */
+final class BloomFilter {
+    private final long[] bits;
+    private final int bitCount;
+    private final int hashCount;
+
+    BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int expected = Math.max(expectedInsertions, 1);
+        long optimalBits = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(Math.max(optimalBits, Long.SIZE), Integer.MAX_VALUE - Long.SIZE);
+        this.bits = new long[(bitCount + Long.SIZE - 1) / Long.SIZE];
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expected * Math.log(2)));
+    }
+
+    void put(UUID sessionId) {
+        long hash1 = mix(sessionId.getMostSignificantBits());
+        long hash2 = mix(sessionId.getLeastSignificantBits() ^ hash1);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = index(hash1 + i * hash2);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(UUID sessionId) {
+        long hash1 = mix(sessionId.getMostSignificantBits());
+        long hash2 = mix(sessionId.getLeastSignificantBits() ^ hash1);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = index(hash1 + i * hash2);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int index(long hash) {
+        return (int) ((hash & Long.MAX_VALUE) % bitCount);
+    }
+
+    // Finalizer of MurmurHash3: spreads every input bit over the whole word
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
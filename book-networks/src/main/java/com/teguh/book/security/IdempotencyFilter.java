@@ -0,0 +1,277 @@
+package com.teguh.book.security;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teguh.book.handler.BusinessErrorCode;
+import com.teguh.book.handler.ExceptionResponse;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.Part;
+
+/*
+ * POST and PATCH requests carrying an Idempotency-Key run at most once per
+ * user, method, path and key: a retry gets the stored response back (marked
+ * with Idempotent-Replayed) and a retry racing the original gets 409. The
+ * key is bound to the body it was first sent with: the same key with another
+ * body gets 422 instead of a response to a request it never made.
+ * Server errors and responses that depend on the moment (auth, rate limit)
+ * are not stored, so those can be retried with the same key. A body is read
+ * into memory to digest it, so one over maxRequestBytes gets 413 instead.
+ * Keys live in this instance's IdempotencyStore: behind a load balancer, a
+ * retry that reaches another instance is not recognised and runs again.
+ */
+@Service
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Set<Integer> TRANSIENT_STATUSES = Set.of(
+            HttpStatus.UNAUTHORIZED.value(),
+            HttpStatus.FORBIDDEN.value(),
+            HttpStatus.REQUEST_TIMEOUT.value(),
+            HttpStatus.TOO_MANY_REQUESTS.value());
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxBodyBytes;
+    private final int maxRequestBytes;
+
+    public IdempotencyFilter(
+            IdempotencyStore idempotencyStore,
+            ObjectMapper objectMapper,
+            @Value("${application.idempotency.enabled:true}") boolean enabled,
+            @Value("${application.idempotency.max-body-bytes:65536}") int maxBodyBytes,
+            @Value("${application.idempotency.max-request-size:1MB}") DataSize maxRequestSize) {
+        this.idempotencyStore = idempotencyStore;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxBodyBytes = maxBodyBytes;
+        this.maxRequestBytes = Math.toIntExact(maxRequestSize.toBytes());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        String key = request.getHeader(IDEMPOTENCY_KEY);
+        if (!enabled || key == null || !isIdempotencyCandidate(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            rejectRequest(response, BusinessErrorCode.INVALID_IDEMPOTENCY_KEY,
+                    IDEMPOTENCY_KEY + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        String scope = clientKey(request) + " " + request.getMethod() + " " + request.getRequestURI() + " " + key;
+        HttpServletRequest readableRequest = request;
+        if (!isMultipart(request)) {
+            byte[] body = readBody(request);
+            if (body == null) {
+                rejectRequest(response, BusinessErrorCode.REQUEST_BODY_TOO_LARGE,
+                        "A request with an " + IDEMPOTENCY_KEY + " can have at most " + maxRequestBytes + " bytes");
+                return;
+            }
+            readableRequest = new CachedBodyRequest(request, body);
+        }
+        String requestDigest = digestBody(readableRequest);
+        IdempotencyStore.Entry existing = idempotencyStore.begin(scope, requestDigest);
+        if (existing != null) {
+            if (!existing.requestDigest().equals(requestDigest)) {
+                rejectRequest(response, BusinessErrorCode.IDEMPOTENCY_KEY_REUSED,
+                        "This " + IDEMPOTENCY_KEY + " was already used with a different request body");
+            } else if (existing.inFlight()) {
+                rejectRequest(response, BusinessErrorCode.IDEMPOTENCY_KEY_IN_USE,
+                        "A request with this " + IDEMPOTENCY_KEY + " is still being processed");
+            } else {
+                replay(response, existing.response());
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(readableRequest, wrapper);
+            int status = wrapper.getStatus();
+            if (status < 500 && !TRANSIENT_STATUSES.contains(status) && wrapper.getContentSize() <= maxBodyBytes) {
+                idempotencyStore.complete(scope, requestDigest, new IdempotencyStore.StoredResponse(
+                        status, wrapper.getContentType(), wrapper.getContentAsByteArray()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                idempotencyStore.abandon(scope);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private boolean isIdempotencyCandidate(HttpServletRequest request) {
+        return HttpMethod.POST.matches(request.getMethod()) || HttpMethod.PATCH.matches(request.getMethod());
+    }
+
+    private boolean isMultipart(HttpServletRequest request) {
+        return request.getContentType() != null
+                && request.getContentType().toLowerCase(Locale.ROOT).startsWith("multipart/");
+    }
+
+    // Null when the declared length or the bytes actually sent go over the limit
+    private byte[] readBody(HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > maxRequestBytes) {
+            return null;
+        }
+        byte[] body = request.getInputStream().readNBytes(maxRequestBytes + 1);
+        return body.length > maxRequestBytes ? null : body;
+    }
+
+    /*
+     * SHA-256 of the body. A multipart body is digested from the parts the
+     * container parsed, so its stream is left for the container to read.
+     */
+    private String digestBody(HttpServletRequest request) throws IOException, ServletException {
+        MessageDigest digest = sha256();
+        if (request instanceof CachedBodyRequest cached) {
+            digest.update(cached.body);
+        } else {
+            for (Part part : request.getParts()) {
+                digest.update(part.getName().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                if (part.getSubmittedFileName() != null) {
+                    digest.update(part.getSubmittedFileName().getBytes(StandardCharsets.UTF_8));
+                }
+                digest.update((byte) 0);
+                try (InputStream content = part.getInputStream(); var digesting = new DigestInputStream(content, digest)) {
+                    digesting.transferTo(OutputStream.nullOutputStream());
+                }
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void replay(HttpServletResponse response, IdempotencyStore.StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        response.setHeader(IDEMPOTENT_REPLAYED, "true");
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private void rejectRequest(HttpServletResponse response, BusinessErrorCode errorCode, String error)
+            throws IOException {
+        response.setStatus(errorCode.getHttpStatus().value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(
+                response.getOutputStream(),
+                ExceptionResponse
+                        .builder()
+                        .businessErrorCode(errorCode.getCode())
+                        .businessErrorDescription(errorCode.getDescription())
+                        .error(error)
+                        .build());
+    }
+
+    // The body read up front for its digest and handed on from memory
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("The body is already in memory");
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() == null
+                    ? StandardCharsets.UTF_8
+                    : Charset.forName(getCharacterEncoding());
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.teguh.book.security;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/*
+ * Bounded, expiring LRU of idempotency keys. An entry is in flight until the
+ * first request with its key completes, then holds that response for replay.
+ * It also keeps the digest of that request's body, so a reuse of the key for
+ * another request can be told apart from a retry.
+ * Everything is in memory: a restart forgets keys, and each instance only
+ * knows the keys it has seen.
+ */
+@Component
+public class IdempotencyStore {
+    private final Map<String, Entry> entries;
+    private final long ttlMillis;
+
+    public IdempotencyStore(
+            @Value("${application.idempotency.max-entries:10000}") int maxEntries,
+            @Value("${application.idempotency.ttl:24h}") Duration ttl) {
+        this.ttlMillis = ttl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /*
+     * Returns the live entry for the key, or null after marking the key in
+     * flight, in which case the caller owns it and must complete or abandon it.
+     */
+    public synchronized Entry begin(String key, String requestDigest) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt() > now) {
+            return entry;
+        }
+        entries.put(key, new Entry(requestDigest, null, now + ttlMillis));
+        return null;
+    }
+
+    public synchronized void complete(String key, String requestDigest, StoredResponse response) {
+        entries.put(key, new Entry(requestDigest, response, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public synchronized void abandon(String key) {
+        entries.remove(key);
+    }
+
+    @Scheduled(fixedDelayString = "${application.idempotency.cleanup-interval:60000}")
+    public synchronized void evictExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt() <= now) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public record Entry(String requestDigest, StoredResponse response, long expiresAt) {
+
+        public boolean inFlight() {
+            return response == null;
+        }
+    }
+
+    public record StoredResponse(int status, String contentType, byte[] body) {
+    }
+}
@@ -1,17 +1,22 @@
 package com.teguh.book.security;
 
 import java.io.IOException;
+import java.util.UUID;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.teguh.book.cache.NearCache;
+import com.teguh.book.user.UserRepository;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,7 +27,10 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class JwtFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final UserRepository userRepository;
+    private final NearCache<AuthenticatedUser> userCache;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final StreamTicketStore streamTicketStore;
 
     @Override
     protected void doFilterInternal(
@@ -30,35 +38,78 @@ public class JwtFilter extends OncePerRequestFilter {
             @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain) throws ServletException, IOException {
 
-        if (request.getServletPath().contains("/api/v1/auth")) {
+        // The servlet path is below the /api/v1 context path
+        if (request.getServletPath().startsWith("/auth/")) {
             filterChain.doFilter(request, response);
             return;
         }
 
         final String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
         final String jwt;
-        final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            authenticateStreamTicket(request);
             filterChain.doFilter(request, response);
             return;
         }
 
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
-
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
-            
-            if (jwtService.isTokenValid(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            Claims claims;
+            try {
+                claims = jwtService.extractAllClaims(jwt);
+            } catch (JwtException e) {
+                // Expired or forged: the request goes on unauthenticated and secured endpoints refuse it
+                filterChain.doFilter(request, response);
+                return;
+            }
+            AuthenticatedUser user = jwtService.extractAuthenticatedUser(claims);
+            if (user == null) {
+                user = authenticatedUserFromDatabase(claims);
+            }
+            // Logged out or locked: the token is still signed and unexpired, but no longer authenticates
+            UUID sessionId = jwtService.extractSessionId(claims);
+            if (user != null && (sessionId == null || !revocationRegistry.isRevoked(sessionId))) {
+                authenticate(user, request);
             }
         }
 
         filterChain.doFilter(request, response);
     }
 
+    // EventSource cannot send headers: the loan event stream also opens with a ticket in its URL
+    private void authenticateStreamTicket(HttpServletRequest request) {
+        String ticket = request.getParameter("ticket");
+        if (ticket == null || !request.getRequestURI().equals(request.getContextPath() + "/loan-events")
+                || SecurityContextHolder.getContext().getAuthentication() != null) {
+            return;
+        }
+        AuthenticatedUser user = streamTicketStore.redeem(ticket);
+        if (user != null) {
+            authenticate(user, request);
+        }
+    }
+
+    private void authenticate(AuthenticatedUser user, HttpServletRequest request) {
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                user, null, user.authorities());
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
+
+    /*
+     * Tokens issued before the user id claim: the subject is looked up, until
+     * they expire (parsing the claims already refused an expired one).
+     */
+    private AuthenticatedUser authenticatedUserFromDatabase(Claims claims) {
+        final String userEmail = claims.getSubject();
+        if (userEmail == null) {
+            return null;
+        }
+        return userCache.get(userEmail, () -> userRepository.findByEmail(userEmail)
+                .map(AuthenticatedUser::from)
+                .orElse(null));
+    }
+
 }
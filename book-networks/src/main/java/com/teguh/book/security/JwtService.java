@@ -3,11 +3,14 @@ package com.teguh.book.security;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
@@ -18,6 +21,12 @@ import io.jsonwebtoken.security.Keys;
 
 @Component
 public class JwtService {
+    public static final String USER_ID_CLAIM = "userId";
+    public static final String FULL_NAME_CLAIM = "fullName";
+    // The login session (refresh token family) the access token belongs to, checked for revocation
+    public static final String SESSION_ID_CLAIM = "sid";
+    private static final String AUTHORITIES_CLAIM = "authorities";
+
     @Value("${application.security.jwt.secrete-key}")
     private String secreteKey;
     @Value("${application.security.jwt.expiration}")
@@ -49,11 +58,48 @@ public class JwtService {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .claim("authorities", authorities)
+                .claim(AUTHORITIES_CLAIM, authorities)
                 .signWith(getSigningKey())
                 .compact();
     }
 
+    /*
+     * The principal from the claims alone; parsing verifies the signature and the
+     * expiry. Null for tokens issued before they carried the user id.
+     */
+    public AuthenticatedUser extractAuthenticatedUser(String token) {
+        return extractAuthenticatedUser(extractAllClaim(token));
+    }
+
+    public AuthenticatedUser extractAuthenticatedUser(Claims claims) {
+        Integer userId = claims.get(USER_ID_CLAIM, Integer.class);
+        if (userId == null) {
+            return null;
+        }
+        List<?> authorities = claims.get(AUTHORITIES_CLAIM, List.class);
+        return new AuthenticatedUser(
+                userId,
+                claims.getSubject(),
+                claims.get(FULL_NAME_CLAIM, String.class),
+                authorities == null
+                        ? List.of()
+                        : authorities.stream().<GrantedAuthority>map(a -> new SimpleGrantedAuthority(a.toString())).toList());
+    }
+
+    // Null for tokens issued before they carried the session id
+    public UUID extractSessionId(Claims claims) {
+        String sessionId = claims.get(SESSION_ID_CLAIM, String.class);
+        return sessionId == null ? null : UUID.fromString(sessionId);
+    }
+
+    /*
+     * Verifies the signature and the expiry once, for callers that read
+     * several claims of the same token.
+     */
+    public Claims extractAllClaims(String token) {
+        return extractAllClaim(token);
+    }
+
     public boolean isTokenValid(String token, UserDetails userDetails) {
         final String username = extractUsername(token);
         return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
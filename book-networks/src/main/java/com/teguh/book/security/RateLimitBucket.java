@@ -0,0 +1,40 @@
+package com.teguh.book.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Token bucket kept as a single "theoretical arrival time" (GCRA), so a
+ * request costs one CAS on one long and no lock.
+ */
+class RateLimitBucket {
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    RateLimitBucket(RateLimitBudget budget, long nowNanos) {
+        this.emissionIntervalNanos = budget.period().toNanos() / budget.capacity();
+        this.burstToleranceNanos = emissionIntervalNanos * (budget.capacity() - 1);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /*
+     * Returns 0 when a token was taken, otherwise the nanos to wait until the next one.
+     */
+    long tryConsume(long nowNanos) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long allowedAt = arrival - burstToleranceNanos;
+            if (nowNanos - allowedAt < 0) {
+                return allowedAt - nowNanos;
+            }
+            long next = Math.max(arrival, nowNanos) + emissionIntervalNanos;
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    boolean isFull(long nowNanos) {
+        return nowNanos - theoreticalArrival.get() >= 0;
+    }
+}
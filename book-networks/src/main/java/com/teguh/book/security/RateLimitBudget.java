@@ -0,0 +1,6 @@
+package com.teguh.book.security;
+
+import java.time.Duration;
+
+record RateLimitBudget(String name, int capacity, Duration period) {
+}
@@ -0,0 +1,113 @@
+package com.teguh.book.security;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Service;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teguh.book.handler.BusinessErrorCode;
+import com.teguh.book.handler.ExceptionResponse;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@Service
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final List<LimitedRoute> routes;
+
+    public RateLimitFilter(
+            RateLimiter rateLimiter,
+            ObjectMapper objectMapper,
+            @Value("${application.rate-limit.enabled:true}") boolean enabled,
+            @Value("${application.rate-limit.write.capacity:20}") int writeCapacity,
+            @Value("${application.rate-limit.write.period:1m}") Duration writePeriod,
+            @Value("${application.rate-limit.upload.capacity:5}") int uploadCapacity,
+            @Value("${application.rate-limit.upload.period:1m}") Duration uploadPeriod) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+
+        RateLimitBudget saveBook = new RateLimitBudget("save-book", writeCapacity, writePeriod);
+        RateLimitBudget borrowBook = new RateLimitBudget("borrow-book", writeCapacity, writePeriod);
+        RateLimitBudget saveFeedback = new RateLimitBudget("save-feedback", writeCapacity, writePeriod);
+        RateLimitBudget uploadCover = new RateLimitBudget("upload-cover", uploadCapacity, uploadPeriod);
+        this.routes = List.of(
+                new LimitedRoute(new AntPathRequestMatcher("/books", HttpMethod.POST.name()), saveBook),
+                new LimitedRoute(new AntPathRequestMatcher("/books/borrow/*", HttpMethod.POST.name()), borrowBook),
+                new LimitedRoute(new AntPathRequestMatcher("/feedbacks", HttpMethod.POST.name()), saveFeedback),
+                new LimitedRoute(new AntPathRequestMatcher("/books/cover/*", HttpMethod.POST.name()), uploadCover));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        RateLimitBudget budget = enabled ? findBudget(request) : null;
+        if (budget == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterSeconds = rateLimiter.tryAcquire(budget, clientKey(request));
+        if (retryAfterSeconds > 0) {
+            rejectRequest(response, retryAfterSeconds);
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private RateLimitBudget findBudget(HttpServletRequest request) {
+        for (LimitedRoute route : routes) {
+            if (route.matcher().matches(request)) {
+                return route.budget();
+            }
+        }
+        return null;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void rejectRequest(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        BusinessErrorCode errorCode = BusinessErrorCode.TOO_MANY_REQUESTS;
+        response.setStatus(errorCode.getHttpStatus().value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(
+                response.getOutputStream(),
+                ExceptionResponse
+                        .builder()
+                        .businessErrorCode(errorCode.getCode())
+                        .businessErrorDescription(errorCode.getDescription())
+                        .error("Rate limit exceeded, retry in " + retryAfterSeconds + " seconds")
+                        .build());
+    }
+
+    private record LimitedRoute(RequestMatcher matcher, RateLimitBudget budget) {
+    }
+}
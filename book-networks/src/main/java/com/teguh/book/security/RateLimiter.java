@@ -0,0 +1,51 @@
+package com.teguh.book.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Component
+public class RateLimiter {
+    private final Map<String, RateLimitBucket> buckets = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public RateLimiter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("rate_limiter.buckets", buckets, Map::size)
+                .description("Rate limit buckets currently held in memory")
+                .register(meterRegistry);
+    }
+
+    /*
+     * Returns 0 when the request is admitted, otherwise the seconds the client should wait.
+     */
+    long tryAcquire(RateLimitBudget budget, String clientKey) {
+        long now = System.nanoTime();
+        RateLimitBucket bucket = buckets.computeIfAbsent(
+                budget.name() + ":" + clientKey, key -> new RateLimitBucket(budget, now));
+        long waitNanos = bucket.tryConsume(now);
+
+        meterRegistry.counter("rate_limiter.requests",
+                "budget", budget.name(),
+                "outcome", waitNanos == 0 ? "admitted" : "rejected")
+                .increment();
+
+        if (waitNanos == 0) {
+            return 0;
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    // A full bucket holds no state worth keeping; drop it so idle clients do not pile up
+    @Scheduled(fixedDelayString = "${application.rate-limit.cleanup-interval:60000}")
+    void evictFullBuckets() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+}
@@ -0,0 +1,61 @@
+package com.teguh.book.security;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/*
+ * One-time tickets that open the loan event stream. A browser EventSource
+ * cannot send the Authorization header, so the client trades its access token
+ * for a ticket and puts that in the stream URL instead: it expires within
+ * seconds and is gone after one use, so a URL that ends up in a log opens
+ * nothing. Tickets are in memory, like the streams themselves: redeem one on
+ * the instance that issued it.
+ */
+@Component
+public class StreamTicketStore {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final Duration ttl;
+
+    private record Ticket(AuthenticatedUser user, long expiresAt) {
+    }
+
+    public StreamTicketStore(@Value("${application.loan-events.ticket-ttl:30s}") Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public Duration ttl() {
+        return ttl;
+    }
+
+    public String issue(AuthenticatedUser user) {
+        byte[] secret = new byte[32];
+        RANDOM.nextBytes(secret);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+        tickets.put(ticket, new Ticket(user, System.currentTimeMillis() + ttl.toMillis()));
+        return ticket;
+    }
+
+    // The ticket's user, or null when it is unknown, used or expired
+    public AuthenticatedUser redeem(String ticket) {
+        Ticket redeemed = tickets.remove(ticket);
+        if (redeemed == null || redeemed.expiresAt() <= System.currentTimeMillis()) {
+            return null;
+        }
+        return redeemed.user();
+    }
+
+    @Scheduled(fixedDelayString = "${application.loan-events.ticket-cleanup-interval:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        tickets.values().removeIf(ticket -> ticket.expiresAt() <= now);
+    }
+}
@@ -0,0 +1,37 @@
+package com.teguh.book.security;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.teguh.book.common.PooledSequence;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/*
+ * A session whose access tokens must be refused before they expire. The row
+ * is only needed until the last access token of the session has expired.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+public class TokenRevocation {
+    @Id
+    @PooledSequence
+    private Integer id;
+
+    @Column(unique = true, nullable = false)
+    private UUID sessionId;
+
+    private LocalDateTime revokedAt;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,118 @@
+package com.teguh.book.security;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Revoked sessions, checked on every authenticated request without touching
+ * the database. Requests read an immutable snapshot: a Bloom filter answers
+ * for almost every token, and only its positives are confirmed against the
+ * exact set. The token_revocation table is the source of truth; every
+ * instance reloads it on a short interval, so a revocation made elsewhere is
+ * enforced here within that interval, and one made here right after commit.
+ */
+@Component
+@Slf4j
+public class TokenRevocationRegistry {
+    private final TokenRevocationRepository revocationRepository;
+    private final long accessTokenLifetime;
+    private final int expectedRevocations;
+    private final double falsePositiveRate;
+    private volatile Snapshot snapshot;
+
+    public TokenRevocationRegistry(
+            TokenRevocationRepository revocationRepository,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.jwt.expiration}") long accessTokenLifetime,
+            @Value("${application.security.revocation.expected-revocations:10000}") int expectedRevocations,
+            @Value("${application.security.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.revocationRepository = revocationRepository;
+        this.accessTokenLifetime = accessTokenLifetime;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.snapshot = snapshotOf(Map.of());
+        Gauge.builder("security.revoked_sessions", this, registry -> registry.snapshot.sessions().size())
+                .register(meterRegistry);
+    }
+
+    public boolean isRevoked(UUID sessionId) {
+        Snapshot current = snapshot;
+        return current.filter().mightContain(sessionId) && current.sessions().containsKey(sessionId);
+    }
+
+    /*
+     * Records the revocation in the caller's transaction. This instance
+     * enforces it once that commits; the others on their next reload.
+     */
+    public void revoke(UUID sessionId) {
+        LocalDateTime now = LocalDateTime.now();
+        // Access tokens of the session issued up to now are all expired by then
+        LocalDateTime expiresAt = now.plusNanos(accessTokenLifetime * 1_000_000);
+        revocationRepository.insertIfAbsent(sessionId, now, expiresAt);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addLocally(sessionId, expiresAt);
+                }
+            });
+        } else {
+            addLocally(sessionId, expiresAt);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${application.security.revocation.refresh-interval:5000}")
+    public void reload() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<UUID, LocalDateTime> loaded = new HashMap<>();
+        revocationRepository.findByExpiresAtAfter(now)
+                .forEach(revocation -> loaded.put(revocation.getSessionId(), revocation.getExpiresAt()));
+        synchronized (this) {
+            // Keeps what this instance revoked while the query ran
+            snapshot.sessions().forEach((sessionId, expiresAt) -> {
+                if (expiresAt.isAfter(now)) {
+                    loaded.putIfAbsent(sessionId, expiresAt);
+                }
+            });
+            snapshot = snapshotOf(loaded);
+        }
+    }
+
+    @Scheduled(cron = "${application.security.revocation.purge-cron:0 */15 * * * *}")
+    public void purgeExpired() {
+        int deleted = revocationRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Purged {} session revocations whose access tokens have expired", deleted);
+        }
+    }
+
+    private synchronized void addLocally(UUID sessionId, LocalDateTime expiresAt) {
+        Map<UUID, LocalDateTime> sessions = new HashMap<>(snapshot.sessions());
+        sessions.put(sessionId, expiresAt);
+        snapshot = snapshotOf(sessions);
+    }
+
+    private Snapshot snapshotOf(Map<UUID, LocalDateTime> sessions) {
+        BloomFilter filter = new BloomFilter(Math.max(expectedRevocations, sessions.size() * 2), falsePositiveRate);
+        sessions.keySet().forEach(filter::put);
+        return new Snapshot(filter, Map.copyOf(sessions));
+    }
+
+    private record Snapshot(BloomFilter filter, Map<UUID, LocalDateTime> sessions) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.teguh.book.security;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Integer> {
+
+    // Revoking a session twice keeps the first row
+    @Modifying
+    @Query(value = """
+            INSERT INTO token_revocation (id, session_id, revoked_at, expires_at)
+            VALUES (nextval('token_revocation_seq'), :sessionId, :now, :expiresAt)
+            ON CONFLICT (session_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(UUID sessionId, LocalDateTime now, LocalDateTime expiresAt);
+
+    List<TokenRevocation> findByExpiresAtAfter(LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TokenRevocation revocation WHERE revocation.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+}
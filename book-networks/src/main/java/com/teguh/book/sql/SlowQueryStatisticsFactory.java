@@ -0,0 +1,37 @@
+package com.teguh.book.sql;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Hibernate reports statements slower than hibernate.log_slow_query to the
+ * statistics, with the SQL as the driver renders it, bind values included.
+ * The default implementation keeps every distinct rendering in a map; this one
+ * logs and times the fingerprint instead.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SlowQueryStatisticsFactory implements StatisticsFactory {
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public StatisticsImplementor buildStatistics(SessionFactoryImplementor sessionFactory) {
+        return new StatisticsImpl(sessionFactory) {
+            @Override
+            public void slowQuery(String sql, long executionTime) {
+                String fingerprint = SqlFingerprints.normalize(sql);
+                String id = SqlFingerprints.id(fingerprint);
+                log.warn("Slow SQL {} took {} ms: {}", id, executionTime, fingerprint);
+                meterRegistry.timer("sql.slow_queries", "fingerprint", id).record(executionTime, TimeUnit.MILLISECONDS);
+            }
+        };
+    }
+}
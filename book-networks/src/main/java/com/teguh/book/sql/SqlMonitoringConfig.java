@@ -0,0 +1,42 @@
+package com.teguh.book.sql;
+
+import java.time.Duration;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class SqlMonitoringConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlMonitoringHibernateProperties(
+            StatementCounter statementCounter,
+            MeterRegistry meterRegistry,
+            @Value("${application.sql.slow-query-threshold:200ms}") Duration slowQueryThreshold) {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+            // Slow statements are only reported to the statistics when they are enabled
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            // ...but not the per-session metrics it would log at INFO when every session closes
+            properties.put(AvailableSettings.LOG_SESSION_METRICS, false);
+            properties.put(AvailableSettings.STATS_BUILDER, new SlowQueryStatisticsFactory(meterRegistry));
+            properties.put(AvailableSettings.LOG_SLOW_QUERY, slowQueryThreshold.toMillis());
+        };
+    }
+
+    // First filter of all, so the user lookup in the security chain counts too
+    @Bean
+    public FilterRegistrationBean<StatementBudgetFilter> statementBudgetFilterRegistration(StatementBudgetFilter filter) {
+        FilterRegistrationBean<StatementBudgetFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+}
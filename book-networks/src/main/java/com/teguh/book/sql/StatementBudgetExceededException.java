@@ -0,0 +1,8 @@
+package com.teguh.book.sql;
+
+public class StatementBudgetExceededException extends RuntimeException {
+
+    public StatementBudgetExceededException(String message) {
+        super(message);
+    }
+}
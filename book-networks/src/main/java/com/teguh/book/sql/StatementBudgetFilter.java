@@ -0,0 +1,90 @@
+package com.teguh.book.sql;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Counts the statements of each request, from the first filter on, and
+ * compares them with the @StatementBudget of the handler method. A request
+ * over budget is logged with its most repeated statement, which is what an
+ * N+1 looks like. With enforce on, as in the test suite, it fails instead.
+ */
+@Slf4j
+@Service
+public class StatementBudgetFilter extends OncePerRequestFilter {
+    private final StatementCounter statementCounter;
+    private final MeterRegistry meterRegistry;
+    private final int defaultBudget;
+    private final boolean enforce;
+
+    public StatementBudgetFilter(
+            StatementCounter statementCounter,
+            MeterRegistry meterRegistry,
+            @Value("${application.sql.statement-budget.default:20}") int defaultBudget,
+            @Value("${application.sql.statement-budget.enforce:false}") boolean enforce) {
+        this.statementCounter = statementCounter;
+        this.meterRegistry = meterRegistry;
+        this.defaultBudget = defaultBudget;
+        this.enforce = enforce;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        statementCounter.begin();
+        StatementCounter.RequestStatements statements;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            statements = statementCounter.end();
+        }
+
+        // Requests that never reached a controller (rejected by security, 404) have no budget
+        if (!(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler)) {
+            return;
+        }
+        String uri = String.valueOf(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+        meterRegistry.summary("sql.statements", "method", request.getMethod(), "uri", uri).record(statements.count());
+
+        int budget = budgetOf(handler);
+        log.debug("{} {} ran {} SQL statements, budget {}", request.getMethod(), uri, statements.count(), budget);
+        if (statements.count() <= budget) {
+            return;
+        }
+        meterRegistry.counter("sql.statements.over_budget", "method", request.getMethod(), "uri", uri).increment();
+        Map.Entry<String, Integer> mostRepeated = statements.mostRepeated();
+        String message = String.format("%s %s ran %d SQL statements, budget %d; most repeated %dx: %s",
+                request.getMethod(), uri, statements.count(), budget,
+                mostRepeated.getValue(), SqlFingerprints.normalize(mostRepeated.getKey()));
+        if (enforce) {
+            throw new StatementBudgetExceededException(message);
+        }
+        log.warn(message);
+    }
+
+    private int budgetOf(HandlerMethod handler) {
+        StatementBudget budget = AnnotatedElementUtils.findMergedAnnotation(handler.getMethod(), StatementBudget.class);
+        if (budget == null) {
+            budget = AnnotatedElementUtils.findMergedAnnotation(handler.getBeanType(), StatementBudget.class);
+        }
+        return budget != null ? budget.value() : defaultBudget;
+    }
+}
@@ -0,0 +1,58 @@
+package com.teguh.book.sql;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/*
+ * Hibernate passes every SQL string it prepares through the inspector. While a
+ * request is counted on the current thread the statement is tallied; the SQL
+ * still has ? placeholders here, so the repeats of an N+1 share one key.
+ * Statements on other threads (events, jobs, async exports) are not counted.
+ */
+@Component
+public class StatementCounter implements StatementInspector {
+    private static final ThreadLocal<RequestStatements> CURRENT = new ThreadLocal<>();
+
+    public void begin() {
+        CURRENT.set(new RequestStatements());
+    }
+
+    public RequestStatements end() {
+        RequestStatements statements = CURRENT.get();
+        CURRENT.remove();
+        return statements;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        RequestStatements statements = CURRENT.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    public static class RequestStatements {
+        private final Map<String, Integer> countBySql = new HashMap<>();
+        private int count;
+
+        private void add(String sql) {
+            count++;
+            countBySql.merge(sql, 1, Integer::sum);
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public Map.Entry<String, Integer> mostRepeated() {
+            return countBySql.isEmpty()
+                    ? null
+                    : Collections.max(countBySql.entrySet(), Map.Entry.comparingByValue());
+        }
+    }
+}
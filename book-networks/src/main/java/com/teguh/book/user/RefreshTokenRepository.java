@@ -0,0 +1,68 @@
+package com.teguh.book.user;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.LockModeType;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Integer> {
+
+    // Locked so that two refreshes racing with the same token cannot both rotate it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT token FROM RefreshToken token
+            JOIN FETCH token.user
+            WHERE token.tokenHash = :tokenHash
+            """)
+    Optional<RefreshToken> findByTokenHashForUpdate(String tokenHash);
+
+    @Modifying
+    @Query("""
+            UPDATE RefreshToken token
+            SET token.revokedAt = :now
+            WHERE token.familyId = :familyId
+            AND token.revokedAt IS NULL
+            """)
+    int revokeFamily(UUID familyId, LocalDateTime now);
+
+    @Modifying
+    @Query("""
+            UPDATE RefreshToken token
+            SET token.revokedAt = :now
+            WHERE token.user.id = :userId
+            AND token.revokedAt IS NULL
+            """)
+    int revokeAllOfUser(Integer userId, LocalDateTime now);
+
+    /*
+     * Families of the user that handed out an access token since the given
+     * time; their access tokens may still be live.
+     */
+    @Query("""
+            SELECT DISTINCT token.familyId FROM RefreshToken token
+            WHERE token.user.id = :userId
+            AND token.createdAt > :since
+            """)
+    List<UUID> findFamiliesIssuedSince(Integer userId, LocalDateTime since);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM refresh_token
+            WHERE id IN (
+                SELECT id FROM refresh_token
+                WHERE expires_at < :cutoff
+                OR revoked_at < :cutoff
+                LIMIT :batchSize
+            )
+            """, nativeQuery = true)
+    int deleteExpiredOrRevokedBefore(LocalDateTime cutoff, int batchSize);
+}
@@ -2,11 +2,14 @@ package com.teguh.book.user;
 
 import java.time.LocalDateTime;
 
+import com.teguh.book.common.PooledSequence;
+
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -19,9 +22,10 @@ import lombok.Setter;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = @Index(name = "idx_token_token", columnList = "token"))
 public class Token {
     @Id
-    @GeneratedValue
+    @PooledSequence
     private Integer id;
 
     private String token;
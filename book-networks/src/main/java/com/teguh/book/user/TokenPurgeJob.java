@@ -0,0 +1,57 @@
+package com.teguh.book.user;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.IntSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Activation tokens are only useful for a short while. Tokens validated or
+ * expired longer than the retention ago are deleted in small batches, each in
+ * its own transaction, so the table stays small without long-running locks.
+ * Refresh tokens expired or revoked longer than the retention ago go the same
+ * way; until then a revoked one is still recognised when it is reused.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class TokenPurgeJob {
+    private final TokenRepository tokenRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${application.security.activation-token.retention:1d}")
+    private Duration retention;
+
+    @Value("${application.security.activation-token.purge-batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(cron = "${application.security.activation-token.purge-cron:0 */15 * * * *}")
+    public void purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int total = purgeInBatches(() -> tokenRepository.deleteValidatedOrExpiredBefore(cutoff, batchSize));
+        if (total > 0) {
+            log.info("Purged {} activation tokens validated or expired before {}", total, cutoff);
+        }
+
+        total = purgeInBatches(() -> refreshTokenRepository.deleteExpiredOrRevokedBefore(cutoff, batchSize));
+        if (total > 0) {
+            log.info("Purged {} refresh tokens expired or revoked before {}", total, cutoff);
+        }
+    }
+
+    private int purgeInBatches(IntSupplier deleteBatch) {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = deleteBatch.getAsInt();
+            total += deleted;
+        } while (deleted == batchSize);
+        return total;
+    }
+}
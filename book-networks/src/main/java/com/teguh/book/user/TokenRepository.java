@@ -1,9 +1,65 @@
 package com.teguh.book.user;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface TokenRepository extends JpaRepository<Token, Integer> {
-    Optional<Token> findByToken(String token);
+    // At most one: uk_token_live_code keeps the code of an unvalidated token unique
+    Optional<Token> findByTokenAndValidatedAtIsNull(String token);
+
+    boolean existsByTokenAndValidatedAtIsNotNull(String token);
+
+    /*
+     * Saves a token unless another unvalidated token holds its code.
+     * Returns 1 when it was saved, 0 when the code is taken.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO token (id, token, created_at, expires_at, user_id)
+            VALUES (nextval('token_seq'), :token, :now, :expiresAt, :userId)
+            ON CONFLICT (token) WHERE validated_at IS NULL DO NOTHING
+            """, nativeQuery = true)
+    int insertIfCodeIsFree(String token, LocalDateTime now, LocalDateTime expiresAt, Integer userId);
+
+    /*
+     * Validates a live token and enables its user in one statement.
+     * Returns the user's email, or empty when the token is unknown, expired
+     * or already validated.
+     */
+    @Transactional
+    @Query(value = """
+            WITH validated AS (
+                UPDATE token
+                SET validated_at = :now
+                WHERE token = :token
+                AND validated_at IS NULL
+                AND expires_at > :now
+                RETURNING user_id
+            )
+            UPDATE _user
+            SET enabled = true, last_modified_date = :now
+            FROM validated
+            WHERE _user.id = validated.user_id
+            RETURNING _user.email
+            """, nativeQuery = true)
+    Optional<String> activateUserByToken(String token, LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM token
+            WHERE id IN (
+                SELECT id FROM token
+                WHERE validated_at < :cutoff
+                OR expires_at < :cutoff
+                LIMIT :batchSize
+            )
+            """, nativeQuery = true)
+    int deleteValidatedOrExpiredBefore(LocalDateTime cutoff, int batchSize);
 }
@@ -15,6 +15,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import com.teguh.book.book.Book;
+import com.teguh.book.common.PooledSequence;
 import com.teguh.book.history.BookTransactionHistory;
 import com.teguh.book.role.Role;
 
@@ -22,7 +23,6 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.OneToMany;
@@ -44,7 +44,7 @@ import lombok.Setter;
 public class User implements UserDetails, Principal {
 
     @Id
-    @GeneratedValue
+    @PooledSequence
     private Integer id;
 
     private String firstname;
@@ -1,9 +1,47 @@
 package com.teguh.book.user;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByEmail(String email);
+
+    /*
+     * Registers a disabled user with its role and activation token in one
+     * statement. Returns the new id, or empty when the email is taken: the
+     * unique constraint decides, so concurrent registrations of one email
+     * cannot both succeed. An activation code held by another unvalidated
+     * token fails the whole statement on uk_token_live_code.
+     */
+    @Transactional
+    @Query(value = """
+            WITH registered AS (
+                INSERT INTO _user
+                    (id, firstname, lastname, email, password, account_locked, enabled,
+                    created_date, last_modified_date)
+                VALUES (nextval('_user_seq'), :firstname, :lastname, :email, :password, false, false, :now, :now)
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id
+            ), role_link AS (
+                INSERT INTO _user_roles (users_id, roles_id)
+                SELECT id, :roleId FROM registered
+            ), activation_token AS (
+                INSERT INTO token (id, token, created_at, expires_at, user_id)
+                SELECT nextval('token_seq'), :token, :now, :tokenExpiresAt, id FROM registered
+            )
+            SELECT id FROM registered
+            """, nativeQuery = true)
+    Optional<Integer> registerWithActivationToken(
+            String firstname,
+            String lastname,
+            String email,
+            String password,
+            Integer roleId,
+            String token,
+            LocalDateTime now,
+            LocalDateTime tokenExpiresAt);
 }
@@ -0,0 +1,10 @@
+-- The recommendation refresh that folded each loan in; NULL until one claims it
+ALTER TABLE book_transaction_history ADD COLUMN IF NOT EXISTS recommendation_batch integer;
+CREATE INDEX IF NOT EXISTS idx_history_recommendation_batch ON book_transaction_history (recommendation_batch);
+
+-- Progress of background jobs, kept across restarts and shared by every instance
+CREATE TABLE IF NOT EXISTS job_watermark (
+    job_name varchar(64) NOT NULL PRIMARY KEY,
+    watermark bigint NOT NULL
+);
+INSERT INTO job_watermark (job_name, watermark) VALUES ('recommendations', 0) ON CONFLICT DO NOTHING;
@@ -0,0 +1,14 @@
+-- Summaries of books reviewed before summaries existed, built once here rather than on every startup
+INSERT INTO book_rating_summary
+    (book_id, total_count, rating_sum, one_star, two_star, three_star, four_star, five_star)
+SELECT feedback.book_id, COUNT(feedback.rating), SUM(feedback.rating),
+    COUNT(*) FILTER (WHERE CEIL(feedback.rating) <= 1),
+    COUNT(*) FILTER (WHERE CEIL(feedback.rating) = 2),
+    COUNT(*) FILTER (WHERE CEIL(feedback.rating) = 3),
+    COUNT(*) FILTER (WHERE CEIL(feedback.rating) = 4),
+    COUNT(*) FILTER (WHERE CEIL(feedback.rating) >= 5)
+FROM feedback
+WHERE feedback.book_id IS NOT NULL
+AND feedback.rating IS NOT NULL
+GROUP BY feedback.book_id
+ON CONFLICT (book_id) DO NOTHING;
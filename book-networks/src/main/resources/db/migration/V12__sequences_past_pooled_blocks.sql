@@ -0,0 +1,12 @@
+-- Ids came from the pooled optimizer (nextval N handed out N-49..N) and now from pooled-lo (N..N+49).
+-- Each sequence moves past its highest id and its last value, plus a block, so the first pooled-lo
+-- block starts above every id a pooled instance handed out. Old and new instances must not run
+-- together: one draws pooled blocks below the value it gets, the other above, and they overlap.
+SELECT setval('_user_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM _user), (SELECT last_value FROM _user_seq)) + 50);
+SELECT setval('book_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM book), (SELECT last_value FROM book_seq)) + 50);
+SELECT setval('book_transaction_history_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM book_transaction_history), (SELECT last_value FROM book_transaction_history_seq)) + 50);
+SELECT setval('feedback_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM feedback), (SELECT last_value FROM feedback_seq)) + 50);
+SELECT setval('role_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM role), (SELECT last_value FROM role_seq)) + 50);
+SELECT setval('token_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM token), (SELECT last_value FROM token_seq)) + 50);
+SELECT setval('refresh_token_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM refresh_token), (SELECT last_value FROM refresh_token_seq)) + 50);
+SELECT setval('token_revocation_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM token_revocation), (SELECT last_value FROM token_revocation_seq)) + 50);
@@ -0,0 +1,82 @@
+-- The schema as ddl-auto created it before the migrations existed. Databases
+-- created that way are baselined at this version and start from V2.
+
+CREATE SEQUENCE _user_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE book_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE book_transaction_history_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE feedback_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE role_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE token_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE _user (
+    id integer NOT NULL PRIMARY KEY,
+    firstname varchar(255),
+    lastname varchar(255),
+    date_of_birth date,
+    email varchar(255) UNIQUE,
+    password varchar(255),
+    account_locked boolean NOT NULL,
+    enabled boolean NOT NULL,
+    created_date timestamp(6) NOT NULL,
+    last_modified_date timestamp(6)
+);
+
+CREATE TABLE role (
+    id integer NOT NULL PRIMARY KEY,
+    name varchar(255) UNIQUE,
+    created_date timestamp(6) NOT NULL,
+    last_modified_date timestamp(6)
+);
+
+CREATE TABLE _user_roles (
+    users_id integer NOT NULL REFERENCES _user,
+    roles_id integer NOT NULL REFERENCES role
+);
+
+CREATE TABLE token (
+    id integer NOT NULL PRIMARY KEY,
+    token varchar(255),
+    created_at timestamp(6),
+    expires_at timestamp(6),
+    validated_at timestamp(6),
+    user_id integer NOT NULL REFERENCES _user
+);
+
+CREATE TABLE book (
+    id integer NOT NULL PRIMARY KEY,
+    title varchar(255),
+    author_name varchar(255),
+    isbn varchar(255),
+    synopsis varchar(255),
+    cover_book varchar(255),
+    archived boolean NOT NULL,
+    shareable boolean NOT NULL,
+    owner_id integer REFERENCES _user,
+    created_by integer NOT NULL,
+    created_date timestamp(6) NOT NULL,
+    last_modified_by integer,
+    last_modified_date timestamp(6)
+);
+
+CREATE TABLE book_transaction_history (
+    id integer NOT NULL PRIMARY KEY,
+    book_id integer REFERENCES book,
+    user_id integer REFERENCES _user,
+    returned boolean NOT NULL,
+    return_approved boolean NOT NULL,
+    created_by integer NOT NULL,
+    created_date timestamp(6) NOT NULL,
+    last_modified_by integer,
+    last_modified_date timestamp(6)
+);
+
+CREATE TABLE feedback (
+    id integer NOT NULL PRIMARY KEY,
+    rating float(53),
+    comment varchar(255),
+    book_id integer REFERENCES book,
+    created_by integer NOT NULL,
+    created_date timestamp(6) NOT NULL,
+    last_modified_by integer,
+    last_modified_date timestamp(6)
+);
@@ -0,0 +1,2 @@
+-- Activation and the stale-token purge look tokens up by code
+CREATE INDEX IF NOT EXISTS idx_token_token ON token (token);
@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS book_recommendation (
+    book_id integer NOT NULL,
+    slot integer NOT NULL,
+    recommended_book_id integer,
+    score integer,
+    PRIMARY KEY (book_id, slot)
+);
@@ -0,0 +1,4 @@
+ALTER TABLE book ADD COLUMN IF NOT EXISTS trending_score float(53) DEFAULT 0;
+
+-- The trending feed is read in this order, filtered on the two flags
+CREATE INDEX IF NOT EXISTS idx_book_feed_trending ON book (archived, shareable, trending_score DESC, id DESC);
@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS book_rating_summary (
+    book_id integer NOT NULL PRIMARY KEY,
+    total_count integer NOT NULL,
+    rating_sum float(53) NOT NULL,
+    one_star integer NOT NULL,
+    two_star integer NOT NULL,
+    three_star integer NOT NULL,
+    four_star integer NOT NULL,
+    five_star integer NOT NULL
+);
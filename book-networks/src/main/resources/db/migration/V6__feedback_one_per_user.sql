@@ -0,0 +1,34 @@
+-- Feedbacks were not unique per user and book: of a user's feedbacks on a book, only the newest is kept
+CREATE TEMPORARY TABLE feedback_deduplicated_book ON COMMIT DROP AS
+SELECT DISTINCT older.book_id
+FROM feedback older
+JOIN feedback newer
+    ON newer.book_id = older.book_id
+    AND newer.created_by = older.created_by
+    AND (newer.created_date, newer.id) > (older.created_date, older.id);
+
+DELETE FROM feedback older
+USING feedback newer
+WHERE newer.book_id = older.book_id
+AND newer.created_by = older.created_by
+AND (newer.created_date, newer.id) > (older.created_date, older.id);
+
+-- Summaries the startup backfill built before this counted the removed feedbacks too
+DELETE FROM book_rating_summary
+WHERE book_id IN (SELECT book_id FROM feedback_deduplicated_book);
+
+INSERT INTO book_rating_summary
+    (book_id, total_count, rating_sum, one_star, two_star, three_star, four_star, five_star)
+SELECT feedback.book_id, COUNT(feedback.rating), SUM(feedback.rating),
+    COUNT(*) FILTER (WHERE CEIL(feedback.rating) <= 1),
+    COUNT(*) FILTER (WHERE CEIL(feedback.rating) = 2),
+    COUNT(*) FILTER (WHERE CEIL(feedback.rating) = 3),
+    COUNT(*) FILTER (WHERE CEIL(feedback.rating) = 4),
+    COUNT(*) FILTER (WHERE CEIL(feedback.rating) >= 5)
+FROM feedback
+WHERE feedback.book_id IN (SELECT book_id FROM feedback_deduplicated_book)
+AND feedback.rating IS NOT NULL
+GROUP BY feedback.book_id;
+
+-- Named like the entity's constraint, which ddl-auto created as a unique constraint backed by this index
+CREATE UNIQUE INDEX IF NOT EXISTS uk_feedback_book_user ON feedback (book_id, created_by);
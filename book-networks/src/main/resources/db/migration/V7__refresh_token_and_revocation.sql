@@ -0,0 +1,21 @@
+CREATE SEQUENCE IF NOT EXISTS refresh_token_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS token_revocation_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS refresh_token (
+    id integer NOT NULL PRIMARY KEY,
+    token_hash varchar(64) NOT NULL UNIQUE,
+    family_id uuid NOT NULL,
+    user_id integer NOT NULL REFERENCES _user,
+    created_at timestamp(6),
+    expires_at timestamp(6),
+    revoked_at timestamp(6)
+);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_family ON refresh_token (family_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_user ON refresh_token (user_id);
+
+CREATE TABLE IF NOT EXISTS token_revocation (
+    id integer NOT NULL PRIMARY KEY,
+    session_id uuid NOT NULL UNIQUE,
+    revoked_at timestamp(6),
+    expires_at timestamp(6)
+);
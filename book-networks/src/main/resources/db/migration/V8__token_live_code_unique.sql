@@ -0,0 +1,10 @@
+-- Codes were not unique: of the unvalidated tokens sharing a code, only the newest is kept
+DELETE FROM token older
+USING token newer
+WHERE newer.token = older.token
+AND newer.validated_at IS NULL
+AND older.validated_at IS NULL
+AND (newer.created_at, newer.id) > (older.created_at, older.id);
+
+-- A code identifies at most one unvalidated token, so activating it can only enable that token's user
+CREATE UNIQUE INDEX IF NOT EXISTS uk_token_live_code ON token (token) WHERE validated_at IS NULL;
@@ -0,0 +1,2 @@
+-- Readers of the shared feed head count their own shareable books; owners list theirs
+CREATE INDEX IF NOT EXISTS idx_book_owner ON book (owner_id);
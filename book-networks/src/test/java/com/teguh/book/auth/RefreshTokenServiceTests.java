@@ -0,0 +1,110 @@
+package com.teguh.book.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.teguh.book.role.RoleRepository;
+import com.teguh.book.security.JwtService;
+import com.teguh.book.security.TokenRevocationRegistry;
+import com.teguh.book.user.User;
+
+import jakarta.persistence.EntityManager;
+
+/*
+ * Each step is flushed and cleared like the end of a request, so the next
+ * one reads the refresh tokens as the database has them.
+ */
+@SpringBootTest
+@Transactional
+class RefreshTokenServiceTests {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private RoleRepository roleRepository;
+    @MockitoSpyBean
+    private TokenRevocationRegistry revocationRegistry;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = User.builder()
+                .firstname("refresh")
+                .lastname("Test")
+                .email("refresh-" + System.nanoTime() + "@book.test")
+                .password("{noop}password")
+                .enabled(true)
+                .roles(new ArrayList<>(roleRepository.findByName("USER").stream().toList()))
+                .build();
+        entityManager.persist(user);
+        endRequest();
+    }
+
+    @Test
+    void refreshRotatesTheTokenWithinTheSession() {
+        AuthenticationResponse login = refreshTokenService.startSession(user);
+        endRequest();
+
+        AuthenticationResponse refreshed = refreshTokenService.refresh(login.getRefreshToken());
+        endRequest();
+
+        assertNotEquals(login.getRefreshToken(), refreshed.getRefreshToken());
+        assertEquals(sessionOf(login), sessionOf(refreshed));
+        // Used once: the rotated token no longer refreshes, the new one does
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.refresh(login.getRefreshToken()));
+    }
+
+    @Test
+    void reusedTokenRevokesTheWholeSession() {
+        AuthenticationResponse login = refreshTokenService.startSession(user);
+        endRequest();
+        AuthenticationResponse refreshed = refreshTokenService.refresh(login.getRefreshToken());
+        endRequest();
+
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.refresh(login.getRefreshToken()));
+        endRequest();
+
+        // The legitimate holder's token went with the session
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.refresh(refreshed.getRefreshToken()));
+        verify(revocationRegistry, atLeastOnce()).revoke(sessionOf(login));
+    }
+
+    @Test
+    void logoutEndsTheSession() {
+        AuthenticationResponse login = refreshTokenService.startSession(user);
+        endRequest();
+
+        refreshTokenService.logout(login.getRefreshToken(), false);
+        endRequest();
+
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.refresh(login.getRefreshToken()));
+    }
+
+    private UUID sessionOf(AuthenticationResponse response) {
+        return jwtService.extractSessionId(jwtService.extractAllClaims(response.getToken()));
+    }
+
+    private void endRequest() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
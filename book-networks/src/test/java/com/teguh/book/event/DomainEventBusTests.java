@@ -0,0 +1,114 @@
+package com.teguh.book.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DomainEventBusTests {
+
+    /*
+     * Records every event with the thread that delivered it; the dispatcher
+     * thread waits on the gate before its first batch.
+     */
+    static class RecordingConsumer implements DomainEventConsumer {
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private final List<Integer> userIds = new CopyOnWriteArrayList<>();
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public void onEvents(List<DomainEvent> events) {
+            if (Thread.currentThread().getName().startsWith("domain-events-")) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            for (DomainEvent event : events) {
+                userIds.add(((ActivationTokenExpired) event).userId());
+                threads.add(Thread.currentThread().getName());
+            }
+        }
+    }
+
+    private final RecordingConsumer consumer = new RecordingConsumer();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private DomainEventBus bus(int queueCapacity, Duration shutdownTimeout) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("recording", consumer);
+        return new DomainEventBus(beanFactory.getBeanProvider(DomainEventConsumer.class), meterRegistry,
+                queueCapacity, 100, Duration.ofMillis(50), shutdownTimeout);
+    }
+
+    @Test
+    void publisherDeliversItselfWhenTheQueueStaysFull() throws InterruptedException {
+        DomainEventBus bus = bus(1, Duration.ofSeconds(5));
+        bus.start();
+        bus.publish(new ActivationTokenExpired(1));
+        // The dispatcher holds the first event at the gate, the second fills the queue
+        awaitQueueSize(0);
+        bus.publish(new ActivationTokenExpired(2));
+        bus.publish(new ActivationTokenExpired(3));
+
+        assertEquals(List.of(3), consumer.userIds);
+        assertEquals(Thread.currentThread().getName(), consumer.threads.get(0));
+        assertEquals(1.0, meterRegistry.get("domain_events.caller_runs").counter().count());
+
+        consumer.gate.countDown();
+        bus.stop();
+        assertEquals(List.of(3, 1, 2), consumer.userIds);
+    }
+
+    @Test
+    void stopDeliversTheQueuedEventsBeforeReturning() throws InterruptedException {
+        DomainEventBus bus = bus(100, Duration.ofSeconds(5));
+        bus.start();
+        for (int userId = 1; userId <= 10; userId++) {
+            bus.publish(new ActivationTokenExpired(userId));
+        }
+
+        Thread releaser = new Thread(() -> {
+            sleep(200);
+            consumer.gate.countDown();
+        });
+        releaser.start();
+        bus.stop();
+
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), consumer.userIds);
+        assertTrue(consumer.threads.stream().allMatch(thread -> thread.startsWith("domain-events-")));
+        releaser.join();
+    }
+
+    private void awaitQueueSize(double size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("domain_events.queue.size").gauge().value() != size) {
+            assertTrue(System.nanoTime() < deadline, "queue never reached " + size);
+            Thread.sleep(10);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.teguh.book.security;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTests {
+    private static final int INSERTIONS = 10_000;
+    private static final double FALSE_POSITIVE_RATE = 0.001;
+
+    @Test
+    void containsEverySessionPut() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, FALSE_POSITIVE_RATE);
+        List<UUID> sessions = new ArrayList<>();
+        for (int i = 0; i < INSERTIONS; i++) {
+            UUID sessionId = UUID.randomUUID();
+            filter.put(sessionId);
+            sessions.add(sessionId);
+        }
+
+        sessions.forEach(sessionId -> assertTrue(filter.mightContain(sessionId)));
+    }
+
+    @Test
+    void falsePositivesStayNearTheSizedRate() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put(UUID.randomUUID());
+        }
+
+        int probes = 200_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+        // Three times the target leaves room for chance, a broken hash lands far above it
+        assertTrue(falsePositives < probes * FALSE_POSITIVE_RATE * 3,
+                falsePositives + " false positives in " + probes + " probes");
+    }
+}
@@ -0,0 +1,84 @@
+package com.teguh.book.security;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.teguh.book.auth.AuthenticationResponse;
+import com.teguh.book.auth.RefreshTokenService;
+import com.teguh.book.role.RoleRepository;
+import com.teguh.book.user.User;
+
+import jakarta.persistence.EntityManager;
+
+/*
+ * Access tokens are issued already expired, as a client holds them when it
+ * comes back to refresh.
+ */
+@SpringBootTest(properties = "application.security.jwt.expiration=-60000")
+@AutoConfigureMockMvc
+@Transactional
+class JwtFilterTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private AuthenticationResponse session;
+
+    @BeforeEach
+    void setUp() {
+        User user = User.builder()
+                .firstname("expired")
+                .lastname("Test")
+                .email("expired-" + System.nanoTime() + "@book.test")
+                .password("{noop}password")
+                .enabled(true)
+                .roles(new ArrayList<>(roleRepository.findByName("USER").stream().toList()))
+                .build();
+        entityManager.persist(user);
+        session = refreshTokenService.startSession(user);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void refreshSucceedsWithTheExpiredAccessTokenSent() throws Exception {
+        mockMvc.perform(post("/auth/refresh")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + session.getToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + session.getRefreshToken() + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.refreshToken").isNotEmpty());
+    }
+
+    @Test
+    void expiredAccessTokenIsRefusedNotAnError() throws Exception {
+        mockMvc.perform(get("/books").header(HttpHeaders.AUTHORIZATION, "Bearer " + session.getToken()))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void forgedAccessTokenIsRefusedNotAnError() throws Exception {
+        mockMvc.perform(get("/books").header(HttpHeaders.AUTHORIZATION, "Bearer not.a.token"))
+                .andExpect(status().isForbidden());
+    }
+}
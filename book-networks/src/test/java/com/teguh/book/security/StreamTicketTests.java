@@ -0,0 +1,92 @@
+package com.teguh.book.security;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teguh.book.auth.RefreshTokenService;
+import com.teguh.book.role.RoleRepository;
+import com.teguh.book.user.User;
+
+import jakarta.persistence.EntityManager;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class StreamTicketTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private String accessToken;
+
+    @BeforeEach
+    void setUp() {
+        User user = User.builder()
+                .firstname("stream")
+                .lastname("Test")
+                .email("stream-" + System.nanoTime() + "@book.test")
+                .password("{noop}password")
+                .enabled(true)
+                .roles(new ArrayList<>(roleRepository.findByName("USER").stream().toList()))
+                .build();
+        entityManager.persist(user);
+        accessToken = refreshTokenService.startSession(user).getToken();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void ticketOpensTheStreamOnce() throws Exception {
+        String ticket = issueTicket();
+
+        mockMvc.perform(get("/loan-events").param("ticket", ticket))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+        mockMvc.perform(get("/loan-events").param("ticket", ticket))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void ticketOpensNothingButTheStream() throws Exception {
+        mockMvc.perform(get("/books").param("ticket", issueTicket()))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void unknownTicketIsRefused() throws Exception {
+        mockMvc.perform(get("/loan-events").param("ticket", "not-a-ticket"))
+                .andExpect(status().isForbidden());
+    }
+
+    private String issueTicket() throws Exception {
+        String body = mockMvc.perform(post("/loan-events/tickets")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readTree(body).get("ticket").asText();
+    }
+}
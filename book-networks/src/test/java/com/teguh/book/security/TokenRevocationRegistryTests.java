@@ -0,0 +1,86 @@
+package com.teguh.book.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TokenRevocationRegistryTests {
+    private static final long ACCESS_TOKEN_LIFETIME = 900_000;
+
+    private TokenRevocationRepository revocationRepository;
+    private TokenRevocationRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        revocationRepository = mock(TokenRevocationRepository.class);
+        registry = new TokenRevocationRegistry(
+                revocationRepository, new SimpleMeterRegistry(), ACCESS_TOKEN_LIFETIME, 100, 0.001);
+    }
+
+    @Test
+    void revokedSessionIsRefusedRightAway() {
+        UUID revoked = UUID.randomUUID();
+
+        registry.revoke(revoked);
+
+        verify(revocationRepository).insertIfAbsent(any(UUID.class), any(LocalDateTime.class), any(LocalDateTime.class));
+        assertTrue(registry.isRevoked(revoked));
+        assertFalse(registry.isRevoked(UUID.randomUUID()));
+    }
+
+    @Test
+    void reloadPicksUpRevocationsMadeElsewhere() {
+        UUID elsewhere = UUID.randomUUID();
+        when(revocationRepository.findByExpiresAtAfter(any(LocalDateTime.class)))
+                .thenReturn(List.of(revocation(elsewhere, LocalDateTime.now().plusMinutes(5))));
+
+        registry.reload();
+
+        assertTrue(registry.isRevoked(elsewhere));
+    }
+
+    @Test
+    void reloadKeepsLocalRevocationsTheQueryMissed() {
+        UUID local = UUID.randomUUID();
+        registry.revoke(local);
+        when(revocationRepository.findByExpiresAtAfter(any(LocalDateTime.class))).thenReturn(List.of());
+
+        registry.reload();
+
+        assertTrue(registry.isRevoked(local));
+    }
+
+    @Test
+    void reloadDropsRevocationsWhoseAccessTokensHaveExpired() {
+        // Access tokens that expire as they are issued: the revocation is over by the next reload
+        TokenRevocationRegistry shortLived = new TokenRevocationRegistry(
+                revocationRepository, new SimpleMeterRegistry(), 0, 100, 0.001);
+        UUID revoked = UUID.randomUUID();
+        shortLived.revoke(revoked);
+        when(revocationRepository.findByExpiresAtAfter(any(LocalDateTime.class))).thenReturn(List.of());
+
+        shortLived.reload();
+
+        assertFalse(shortLived.isRevoked(revoked));
+    }
+
+    private static TokenRevocation revocation(UUID sessionId, LocalDateTime expiresAt) {
+        return TokenRevocation.builder()
+                .sessionId(sessionId)
+                .revokedAt(LocalDateTime.now())
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
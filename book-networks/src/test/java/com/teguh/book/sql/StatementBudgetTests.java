@@ -0,0 +1,176 @@
+package com.teguh.book.sql;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.teguh.book.book.Book;
+import com.teguh.book.book.BookRepository;
+import com.teguh.book.feedback.Feedback;
+import com.teguh.book.role.RoleRepository;
+import com.teguh.book.security.AuthenticatedUser;
+import com.teguh.book.user.User;
+
+import jakarta.persistence.EntityManager;
+
+/*
+ * Runs the read endpoints over pages with several owners and feedbacks, with
+ * the budgets enforced: a lazy association that goes back to one query per
+ * row makes the request throw instead of passing with a slower response.
+ */
+@SpringBootTest(properties = "application.sql.statement-budget.enforce=true")
+@AutoConfigureMockMvc
+@Transactional
+@Import(StatementBudgetTests.ProbeController.class)
+class StatementBudgetTests {
+    private static final int BOOKS = 12;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private User reader;
+    private Book book;
+
+    @RestController
+    static class ProbeController {
+        @Autowired
+        private BookRepository bookRepository;
+
+        @StatementBudget(0)
+        @GetMapping("/statement-budget-probe")
+        long count() {
+            return bookRepository.count();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        List<User> owners = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            owners.add(user("budget-owner-" + i));
+        }
+        List<User> readers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            readers.add(user("budget-reader-" + i));
+        }
+        reader = readers.get(0);
+
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            User owner = owners.get(i % owners.size());
+            // The owner is the auditor, so createdBy matches and /books/owner lists it
+            authenticate(owner);
+            Book saved = Book.builder()
+                    .title("Budget " + i)
+                    .authorName("Author " + i)
+                    .isbn("budget-" + i)
+                    .synopsis("Synopsis")
+                    .shareable(true)
+                    .owner(owner)
+                    .build();
+            entityManager.persist(saved);
+            books.add(saved);
+        }
+        // One feedback per reader and book, each reader being the auditor of its own
+        for (User feedbackAuthor : readers) {
+            authenticate(feedbackAuthor);
+            for (Book saved : books) {
+                entityManager.persist(Feedback.builder()
+                        .rating(4.0)
+                        .comment("Feedback " + feedbackAuthor.getFirstname())
+                        .book(saved)
+                        .build());
+            }
+        }
+        book = books.get(0);
+        SecurityContextHolder.clearContext();
+
+        // Requests must load from the database, not from what setUp left in the session
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void feedPageStaysWithinBudget() throws Exception {
+        mockMvc.perform(get("/books").param("size", "50").with(as(reader)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/books").param("size", "50").param("sort", "TRENDING").with(as(reader)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void bookStaysWithinBudget() throws Exception {
+        mockMvc.perform(get("/books/{id}", book.getId()).with(as(reader)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void ownerPageStaysWithinBudget() throws Exception {
+        mockMvc.perform(get("/books/owner").param("size", "50").with(as(book.getOwner())))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void feedbackPageStaysWithinBudget() throws Exception {
+        mockMvc.perform(get("/feedbacks/book/{id}", book.getId()).param("size", "50").with(as(reader)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/feedbacks/book/{id}/summary", book.getId()).with(as(reader)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void requestOverBudgetFails() {
+        assertThrows(StatementBudgetExceededException.class,
+                () -> mockMvc.perform(get("/statement-budget-probe").with(as(reader))));
+    }
+
+    private User user(String name) {
+        User user = User.builder()
+                .firstname(name)
+                .lastname("Test")
+                .email(name + "-" + System.nanoTime() + "@book.test")
+                .password("{noop}password")
+                .enabled(true)
+                .roles(new ArrayList<>(roleRepository.findByName("USER").stream().toList()))
+                .build();
+        entityManager.persist(user);
+        return user;
+    }
+
+    private void authenticate(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(AuthenticatedUser.from(user), null, user.getAuthorities()));
+    }
+
+    private RequestPostProcessor as(User user) {
+        return authentication(new UsernamePasswordAuthenticationToken(AuthenticatedUser.from(user), null, user.getAuthorities()));
+    }
+}
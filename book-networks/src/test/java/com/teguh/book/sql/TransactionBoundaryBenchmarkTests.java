@@ -0,0 +1,271 @@
+package com.teguh.book.sql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.teguh.book.book.Book;
+import com.teguh.book.book.BookRepository;
+import com.teguh.book.book.BookService;
+import com.teguh.book.history.BookTransactionHistory;
+import com.teguh.book.history.BookTransactionHistoryRepository;
+import com.teguh.book.role.RoleRepository;
+import com.teguh.book.security.AuthenticatedUser;
+import com.teguh.book.user.User;
+import com.teguh.book.user.UserRepository;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Connection checkouts and database round trips of one loan going through
+ * borrow, return and approve, measured on the test thread. "per call" makes
+ * the repository calls the services made before they had transactions, each
+ * in the transaction Spring Data opens for it; "service" is the transactional
+ * service method. Round trips are the statements plus the commits and
+ * rollbacks. The table is logged, the assertions only hold the shape.
+ */
+@Slf4j
+@SpringBootTest
+class TransactionBoundaryBenchmarkTests {
+    private static final ThreadLocal<Sample> CURRENT = new ThreadLocal<>();
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BookTransactionHistoryRepository transactionHistoryRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private StatementCounter statementCounter;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+    private User reader;
+    private Integer bookId;
+
+    @TestConfiguration
+    static class CountingDataSourceConfig {
+
+        // Counts checkouts and commits of the thread being measured, every other thread passes through
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? new CountingDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    static class CountingDataSource extends DelegatingDataSource {
+
+        CountingDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counted(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counted(super.getConnection(username, password));
+        }
+
+        private static Connection counted(Connection connection) {
+            Sample sample = CURRENT.get();
+            if (sample == null) {
+                return connection;
+            }
+            sample.checkouts++;
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("commit") || method.getName().equals("rollback")) {
+                            sample.endings++;
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+
+    static class Sample {
+        private int checkouts;
+        private int endings;
+        private int statements;
+
+        int roundTrips() {
+            return statements + endings;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            owner = user("tx-owner");
+            reader = user("tx-reader");
+            authenticate(owner);
+            Book book = Book.builder()
+                    .title("Transaction boundaries")
+                    .authorName("Author")
+                    .isbn("tx-" + System.nanoTime())
+                    .synopsis("Synopsis")
+                    .shareable(true)
+                    .owner(owner)
+                    .build();
+            entityManager.persist(book);
+            bookId = book.getId();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        jdbcTemplate.update("DELETE FROM book_transaction_history WHERE book_id = ?", bookId);
+        jdbcTemplate.update("DELETE FROM book WHERE id = ?", bookId);
+        for (User user : new User[] { owner, reader }) {
+            jdbcTemplate.update("DELETE FROM _user_roles WHERE users_id = ?", user.getId());
+            jdbcTemplate.update("DELETE FROM _user WHERE id = ?", user.getId());
+        }
+    }
+
+    @Test
+    void serviceTransactionsCheckOutOneConnectionPerRequest() {
+        // A whole loan per call first: the book is free again when the service one starts
+        Sample borrowPerCall = measure(reader, this::borrowPerCall);
+        Sample returnPerCall = measure(reader, this::returnPerCall);
+        Sample approvePerCall = measure(owner, this::approveReturnPerCall);
+        Map<String, Sample[]> results = new LinkedHashMap<>();
+        results.put("borrow", new Sample[] {
+                borrowPerCall, measure(reader, user -> bookService.borrowBook(bookId, as(user))) });
+        results.put("return", new Sample[] {
+                returnPerCall, measure(reader, user -> bookService.returnBorrowedBook(bookId, as(user))) });
+        results.put("approve return", new Sample[] {
+                approvePerCall, measure(owner, user -> bookService.approveReturnBorrowedBook(bookId, as(user))) });
+
+        StringBuilder table = new StringBuilder("""
+
+                | request | per call checkouts | service checkouts | per call round trips | service round trips |
+                |---------|--------------------|-------------------|----------------------|---------------------|
+                """);
+        results.forEach((request, samples) -> table.append("| %s | %d | %d | %d | %d |%n".formatted(
+                request, samples[0].checkouts, samples[1].checkouts, samples[0].roundTrips(), samples[1].roundTrips())));
+        log.info("Connection checkouts and round trips per request:{}", table);
+
+        results.forEach((request, samples) -> {
+            assertEquals(1, samples[1].checkouts, request);
+            assertTrue(samples[1].checkouts < samples[0].checkouts, request);
+            assertTrue(samples[1].roundTrips() < samples[0].roundTrips(), request);
+        });
+    }
+
+    private void borrowPerCall(User user) {
+        Book book = bookRepository.findById(bookId).orElseThrow();
+        if (transactionHistoryRepository.isAlreadyBorrowedByUser(bookId, user.getId())) {
+            throw new IllegalStateException("Already borrowed");
+        }
+        transactionHistoryRepository.save(BookTransactionHistory.builder()
+                .user(userRepository.getReferenceById(user.getId()))
+                .book(book)
+                .returned(false)
+                .returnApproved(false)
+                .build());
+    }
+
+    private void returnPerCall(User user) {
+        bookRepository.findById(bookId).orElseThrow();
+        BookTransactionHistory transactionHistory = transactionHistoryRepository
+                .findByBookIdAndUserId(bookId, user.getId())
+                .orElseThrow();
+        transactionHistory.setReturned(true);
+        transactionHistoryRepository.save(transactionHistory);
+    }
+
+    private void approveReturnPerCall(User user) {
+        bookRepository.findById(bookId).orElseThrow();
+        BookTransactionHistory transactionHistory = transactionHistoryRepository
+                .findByBookIdAndOwnerId(bookId, user.getId())
+                .orElseThrow();
+        transactionHistory.setReturnApproved(true);
+        transactionHistoryRepository.save(transactionHistory);
+    }
+
+    private Sample measure(User user, Consumer<User> request) {
+        authenticate(user);
+        Sample sample = new Sample();
+        CURRENT.set(sample);
+        statementCounter.begin();
+        try {
+            request.accept(user);
+        } finally {
+            sample.statements = statementCounter.end().count();
+            CURRENT.remove();
+            SecurityContextHolder.clearContext();
+        }
+        return sample;
+    }
+
+    private User user(String name) {
+        User user = User.builder()
+                .firstname(name)
+                .lastname("Test")
+                .email(name + "-" + System.nanoTime() + "@book.test")
+                .password("{noop}password")
+                .enabled(true)
+                .roles(new ArrayList<>(roleRepository.findByName("USER").stream().toList()))
+                .build();
+        entityManager.persist(user);
+        return user;
+    }
+
+    private void authenticate(User user) {
+        SecurityContextHolder.getContext().setAuthentication(as(user));
+    }
+
+    private Authentication as(User user) {
+        return new UsernamePasswordAuthenticationToken(AuthenticatedUser.from(user), null, user.getAuthorities());
+    }
+}